@@ -7,6 +7,7 @@ import java.nio.file.attribute.PosixFileAttributes;
 import java.nio.file.attribute.PosixFilePermission;
 import java.nio.file.attribute.PosixFilePermissions;
 import java.nio.file.attribute.UserPrincipal;
+import java.time.OffsetDateTime;
 import java.util.Set;
 import javax.annotation.ParametersAreNonnullByDefault;
 
@@ -25,17 +26,22 @@ public final class BoxBasicFileAttributesProvider extends BasicFileAttributesPro
     @Override
     public FileTime lastModifiedTime() {
         if (isRegularFile())
-            return FileTime.from(entry.getFileFull().getModifiedAt().toInstant());
+            return toFileTime(entry.getFileFull().getModifiedAt());
         else
-            return entry.getFolderFull().getModifiedAt() != null ?  FileTime.from(entry.getFolderFull().getModifiedAt().toInstant()) : FileTime.fromMillis(0);
+            return toFileTime(entry.getFolderFull().getModifiedAt());
     }
 
     @Override
     public FileTime creationTime() {
         if (isRegularFile())
-            return FileTime.from(entry.getFileFull().getCreatedAt().toInstant());
+            return toFileTime(entry.getFileFull().getCreatedAt());
         else
-            return FileTime.from(entry.getFolderFull().getCreatedAt().toInstant());
+            return toFileTime(entry.getFolderFull().getCreatedAt());
+    }
+
+    /** the root and a synthesized entry have no times */
+    private static FileTime toFileTime(OffsetDateTime time) {
+        return time != null ? FileTime.from(time.toInstant()) : FileTime.fromMillis(0);
     }
 
     /**
@@ -65,7 +71,7 @@ public final class BoxBasicFileAttributesProvider extends BasicFileAttributesPro
      */
     @Override
     public long size() {
-        return isRegularFile() ? entry.getFileFull().getSize() : 0;
+        return isRegularFile() && entry.getFileFull().getSize() != null ? entry.getFileFull().getSize() : 0;
     }
 
     /* @see java.nio.file.attribute.PosixFileAttributes#owner() */
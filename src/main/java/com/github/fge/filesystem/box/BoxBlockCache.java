@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+
+/**
+ * BoxBlockCache.
+ * <p>
+ * an on-disk cache of file contents made of fixed size blocks, one plain file per block
+ * read and written as a whole.
+ * a block is keyed by box file id, sha1 of the content and block index, so a new version
+ * of a file never hits old blocks. blocks are written to a temporary file and renamed,
+ * the index is rebuilt from the directory at start, so a crash leaves no broken block.
+ * least recently used blocks are deleted when the total exceeds the byte budget,
+ * a hit touches the block's modified time, so the order survives a restart.
+ * mounts in a jvm share one instance and its budget per directory, the directory is
+ * created readable by the owner only.
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+final class BoxBlockCache {
+
+    private static final Logger logger = System.getLogger(BoxBlockCache.class.getName());
+
+    private static final String SUFFIX = ".block";
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path dir;
+
+    /** the largest one asked by the mounts sharing this */
+    private long budget;
+
+    private final int blockSize;
+
+    /** lru, block file name to its size */
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long total;
+
+    /** blocks, for metrics */
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /** directory, shared one */
+    private static final Map<Path, BoxBlockCache> caches = new HashMap<>();
+
+    /** mounts sharing this */
+    private int references;
+
+    /** @return "~/.vavifuse/box/blocks" */
+    static Path getDefaultDir() {
+        return Paths.get(System.getProperty("user.home"), ".vavifuse", "box", "blocks");
+    }
+
+    /**
+     * @return the instance of the directory, the block size is of the first mount
+     * and the budget is the largest one. release it by {@link #close()}
+     */
+    static BoxBlockCache open(Path dir, long budget, int blockSize) throws IOException {
+        synchronized (caches) {
+            Path key = dir.toAbsolutePath().normalize();
+            BoxBlockCache cache = caches.get(key);
+            if (cache == null) {
+                cache = new BoxBlockCache(key, budget, blockSize);
+                caches.put(key, cache);
+            } else {
+                cache.share(budget);
+            }
+            cache.references++;
+            return cache;
+        }
+    }
+
+    private BoxBlockCache(Path dir, long budget, int blockSize) throws IOException {
+        this.dir = dir;
+        this.budget = budget;
+        this.blockSize = blockSize;
+        createDirectories(dir);
+        load();
+    }
+
+    /** blocks are the user's file contents */
+    private static void createDirectories(Path dir) throws IOException {
+        if (!Files.exists(dir) && FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.createDirectories(dir, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } else {
+            Files.createDirectories(dir);
+        }
+    }
+
+    private synchronized void share(long budget) {
+        if (budget > this.budget) {
+            this.budget = budget;
+        }
+    }
+
+    /** releases a reference of a mount */
+    void close() {
+        synchronized (caches) {
+            if (--references == 0) {
+                caches.remove(dir);
+            }
+        }
+    }
+
+    /** rebuilds the index, older blocks come first */
+    private void load() throws IOException {
+        record Block(Path path, long size, long lastModified) {}
+        List<Block> blocks = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Iterator<Path> i = files.iterator(); i.hasNext();) {
+                Path path = i.next();
+                String name = path.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    // left by a crash
+                    Files.deleteIfExists(path);
+                } else if (name.endsWith(SUFFIX)) {
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    blocks.add(new Block(path, attributes.size(), attributes.lastModifiedTime().toMillis()));
+                }
+            }
+        }
+        blocks.sort(Comparator.comparingLong(Block::lastModified));
+        synchronized (this) {
+            for (Block block : blocks) {
+                index.put(block.path().getFileName().toString(), block.size());
+                total += block.size();
+            }
+            evict();
+        }
+logger.log(Level.DEBUG, "block cache: " + dir + ", blocks: " + index.size() + ", bytes: " + total);
+    }
+
+    /**
+     * @param sha1 version of the content
+     * @param remote reads missing blocks
+     * @return a reader which reads through this cache
+     */
+    BoxRangeReader reader(String id, String sha1, long size, BoxRangeReader remote) {
+        return (offset, length) -> {
+            byte[] bytes = new byte[length];
+            long first = offset / blockSize;
+            long last = (offset + length - 1) / blockSize;
+            byte[][] blocks = new byte[(int) (last - first + 1)][];
+            for (long i = first; i <= last; i++) {
+                blocks[(int) (i - first)] = get(name(id, sha1, i), blockLength(i, size));
+                (blocks[(int) (i - first)] != null ? hits : misses).increment();
+            }
+            // missing blocks in a row are read by one request
+            for (long i = first; i <= last; i++) {
+                if (blocks[(int) (i - first)] != null) {
+                    continue;
+                }
+                long j = i;
+                while (j + 1 <= last && blocks[(int) (j + 1 - first)] == null) {
+                    j++;
+                }
+                long start = i * blockSize;
+                long end = Math.min(size, (j + 1) * blockSize);
+                byte[] run = remote.read(start, (int) (end - start));
+                for (long k = i; k <= j; k++) {
+                    int from = (int) ((k - i) * blockSize);
+                    byte[] block = new byte[blockLength(k, size)];
+                    System.arraycopy(run, from, block, 0, block.length);
+                    blocks[(int) (k - first)] = block;
+                    put(name(id, sha1, k), block);
+                }
+                i = j;
+            }
+            for (long i = first; i <= last; i++) {
+                long blockStart = i * blockSize;
+                long from = Math.max(offset, blockStart);
+                long to = Math.min(offset + length, blockStart + blocks[(int) (i - first)].length);
+                System.arraycopy(blocks[(int) (i - first)], (int) (from - blockStart), bytes, (int) (from - offset), (int) (to - from));
+            }
+            return bytes;
+        };
+    }
+
+    private int blockLength(long index, long size) {
+        return (int) Math.min(blockSize, size - index * blockSize);
+    }
+
+    private static String name(String id, String sha1, long index) {
+        return id + "_" + sha1 + "_" + index + SUFFIX;
+    }
+
+    /** @return null when missing */
+    private byte[] get(String name, int length) {
+        synchronized (this) {
+            if (index.get(name) == null) {
+                return null;
+            }
+        }
+        try {
+            Path path = dir.resolve(name);
+            byte[] block = Files.readAllBytes(path);
+            if (block.length != length) {
+                throw new IOException("broken block: " + name + ", " + block.length + " != " + length);
+            }
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+            return block;
+        } catch (NoSuchFileException e) {
+            remove(name);
+            return null;
+        } catch (IOException e) {
+            logger.log(Level.WARNING, e.getMessage(), e);
+            remove(name);
+            return null;
+        }
+    }
+
+    private void put(String name, byte[] block) {
+        if (block.length > budget) {
+            return;
+        }
+        Path path = dir.resolve(name);
+        Path temp = dir.resolve(name + "." + Thread.currentThread().getId() + TEMP_SUFFIX);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(block);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                // renamed only after the content is on the disk
+                channel.force(false);
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, e.getMessage(), e);
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException f) {
+                logger.log(Level.DEBUG, f.getMessage(), f);
+            }
+            return;
+        }
+        synchronized (this) {
+            Long old = index.put(name, (long) block.length);
+            total += block.length - (old != null ? old : 0);
+            evict();
+        }
+    }
+
+    private synchronized void remove(String name) {
+        Long size = index.remove(name);
+        if (size != null) {
+            total -= size;
+        }
+        delete(name);
+    }
+
+    /** deletes least recently used blocks while over the budget */
+    private synchronized void evict() {
+        for (Iterator<Map.Entry<String, Long>> i = index.entrySet().iterator(); total > budget && i.hasNext();) {
+            Map.Entry<String, Long> entry = i.next();
+            i.remove();
+            total -= entry.getValue();
+            delete(entry.getKey());
+            evictions.increment();
+        }
+    }
+
+    private void delete(String name) {
+        try {
+            Files.deleteIfExists(dir.resolve(name));
+        } catch (IOException e) {
+            logger.log(Level.DEBUG, e.getMessage(), e);
+        }
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    long getEvictions() {
+        return evictions.sum();
+    }
+
+    /** @return total bytes of cached blocks */
+    synchronized long size() {
+        return total;
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+import com.box.sdkgen.client.BoxClient;
+import com.box.sdkgen.managers.chunkeduploads.CreateFileUploadSessionCommitHeaders;
+import com.box.sdkgen.managers.chunkeduploads.CreateFileUploadSessionCommitRequestBody;
+import com.box.sdkgen.managers.chunkeduploads.CreateFileUploadSessionForExistingFileRequestBody;
+import com.box.sdkgen.managers.chunkeduploads.CreateFileUploadSessionRequestBody;
+import com.box.sdkgen.managers.chunkeduploads.UploadFilePartHeaders;
+import com.box.sdkgen.schemas.filefull.FileFull;
+import com.box.sdkgen.schemas.files.Files;
+import com.box.sdkgen.schemas.uploadpart.UploadPart;
+import com.box.sdkgen.schemas.uploadsession.UploadSession;
+import com.github.fge.filesystem.box.BoxEvents.TransferEvent;
+import com.github.fge.filesystem.box.BoxRequestScheduler.Priority;
+
+
+/**
+ * BoxChunkedUploader.
+ * <p>
+ * uploads a large content through box's chunked upload session api.
+ * parts are uploaded in parallel, at most {@code concurrency} parts are in flight
+ * (and in memory) at once. each part carries its own sha1 digest, the commit
+ * carries the digest of the whole content.
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ * @see "https://developer.box.com/guides/uploads/chunked/"
+ */
+final class BoxChunkedUploader {
+
+    private static final Logger logger = System.getLogger(BoxChunkedUploader.class.getName());
+
+    /** box accepts chunked uploads for files larger than 20MB */
+    static final long MIN_SIZE = 20 * 1024 * 1024;
+
+    /** commit returns no entries while parts are still being processed */
+    private static final int MAX_COMMIT_RETRIES = 10;
+
+    private final BoxClient client;
+
+    private final BoxRequestScheduler scheduler;
+
+    private final BoxMetrics metrics;
+
+    private final ExecutorService executor;
+
+    private final int concurrency;
+
+    BoxChunkedUploader(BoxClient client, BoxRequestScheduler scheduler, BoxMetrics metrics, ExecutorService executor, int concurrency) {
+        this.client = client;
+        this.scheduler = scheduler;
+        this.metrics = metrics;
+        this.executor = executor;
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    /**
+     * @param content closed content
+     * @return the uploaded file
+     */
+    FileFull upload(String folderId, String name, BoxUploadOutputStream content) throws IOException {
+        UploadSession session = scheduler.call(Priority.METADATA, "createFileUploadSession", folderId, null, () -> client.chunkedUploads.createFileUploadSession(new CreateFileUploadSessionRequestBody(folderId, content.size(), name)));
+        return upload(session, content, null);
+    }
+
+    /**
+     * uploads a new version of an existing file.
+     * @param content closed content
+     * @param etag the commit fails if the file is changed from this etag, null means no check
+     * @return the uploaded file
+     */
+    FileFull uploadVersion(String fileId, String etag, BoxUploadOutputStream content) throws IOException {
+        UploadSession session = scheduler.call(Priority.METADATA, "createFileUploadSessionForExistingFile", fileId, null, () -> client.chunkedUploads.createFileUploadSessionForExistingFile(fileId, new CreateFileUploadSessionForExistingFileRequestBody(content.size())));
+        return upload(session, content, etag);
+    }
+
+    private FileFull upload(UploadSession session, BoxUploadOutputStream content, String etag) throws IOException {
+        long size = content.size();
+        String sessionId = session.getId();
+        long partSize = session.getPartSize();
+        int totalParts = (int) ((size + partSize - 1) / partSize);
+logger.log(Level.DEBUG, "upload session: " + sessionId + ", size: " + size + ", part size: " + partSize + ", parts: " + totalParts + ", concurrency: " + concurrency);
+
+        try {
+            UploadPart[] parts = new UploadPart[totalParts];
+            Semaphore inFlight = new Semaphore(concurrency);
+            List<CompletableFuture<Void>> futures = new ArrayList<>(totalParts);
+            for (int i = 0; i < totalParts; i++) {
+                int index = i;
+                long offset = i * partSize;
+                int length = (int) Math.min(partSize, size - offset);
+                inFlight.acquire();
+                CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
+                    try {
+                        parts[index] = uploadPart(sessionId, content.read(offset, length), offset, size);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    } finally {
+                        inFlight.release();
+                    }
+                }, executor);
+                futures.add(future);
+                if (futures.stream().anyMatch(CompletableFuture::isCompletedExceptionally)) {
+                    break;
+                }
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+            return commit(sessionId, Arrays.asList(parts), content.sha1(), etag);
+        } catch (InterruptedException e) {
+            abort(sessionId);
+            throw (IOException) new InterruptedIOException("upload interrupted").initCause(e);
+        } catch (CompletionException e) {
+            abort(sessionId);
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        } catch (IOException | RuntimeException e) {
+            abort(sessionId);
+            throw e;
+        }
+    }
+
+    private UploadPart uploadPart(String sessionId, byte[] bytes, long offset, long size) throws IOException {
+        String digest = "sha=" + Base64.getEncoder().encodeToString(sha1(bytes));
+        String contentRange = "bytes " + offset + "-" + (offset + bytes.length - 1) + "/" + size;
+logger.log(Level.TRACE, "part: " + contentRange);
+        // the part is in memory, so it can be sent again
+        TransferEvent event = BoxEvents.transfer();
+        UploadPart part = scheduler.call(Priority.CONTENT, "uploadFilePart", sessionId, null, () -> client.chunkedUploads.uploadFilePart(sessionId, new ByteArrayInputStream(bytes), new UploadFilePartHeaders(digest, contentRange))).getPart();
+        metrics.addBytesOut(bytes.length);
+        BoxEvents.commit(event, "uploadPart", sessionId, null, bytes.length);
+        return part;
+    }
+
+    private FileFull commit(String sessionId, List<UploadPart> parts, byte[] sha1, String etag) throws IOException {
+        String digest = "sha=" + Base64.getEncoder().encodeToString(sha1);
+        CreateFileUploadSessionCommitHeaders.Builder headers = new CreateFileUploadSessionCommitHeaders.Builder(digest);
+        if (etag != null) {
+            headers.ifMatch(etag);
+        }
+        for (int i = 0; i < MAX_COMMIT_RETRIES; i++) {
+            Files files = scheduler.call(Priority.METADATA, "createFileUploadSessionCommit", sessionId, null, () -> client.chunkedUploads.createFileUploadSessionCommit(sessionId, new CreateFileUploadSessionCommitRequestBody(parts), headers.build()));
+            if (files != null && files.getEntries() != null && !files.getEntries().isEmpty()) {
+                return files.getEntries().get(0);
+            }
+logger.log(Level.DEBUG, "commit not ready: " + sessionId + ", retry: " + i);
+            try {
+                Thread.sleep(1000L << Math.min(i, 4));
+            } catch (InterruptedException e) {
+                throw (IOException) new InterruptedIOException("commit interrupted").initCause(e);
+            }
+        }
+        throw new IOException("commit did not complete: " + sessionId);
+    }
+
+    private void abort(String sessionId) {
+        try {
+            scheduler.call(Priority.METADATA, "deleteFileUploadSessionById", sessionId, null, () -> {
+                client.chunkedUploads.deleteFileUploadSessionById(sessionId);
+                return null;
+            });
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, "abort upload session: " + sessionId, e);
+        }
+    }
+
+    private static byte[] sha1(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+import com.box.sdkgen.schemas.item.Item;
+
+
+/**
+ * BoxDirectoryStream.
+ * <p>
+ * a directory stream which fetches folder items page by page while iterating.
+ * the caller can stop early by closing the stream, remaining pages are never requested.
+ * when the listing is consumed completely and it is small enough,
+ * the items are handed to {@code onComplete} for caching.
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+final class BoxDirectoryStream implements DirectoryStream<Path> {
+
+    /** listings larger than this are not handed to {@code onComplete} */
+    static final int MAX_CACHED_ITEMS = 10000;
+
+    private final Path dir;
+    private final BoxFolderItemsIterator items;
+    private final Filter<? super Path> filter;
+    private final Consumer<List<Item>> onComplete;
+
+    private boolean open = true;
+    private boolean iterated;
+
+    BoxDirectoryStream(Path dir, BoxFolderItemsIterator items, Filter<? super Path> filter, Consumer<List<Item>> onComplete) {
+        this.dir = dir;
+        this.items = items;
+        this.filter = filter;
+        this.onComplete = onComplete;
+    }
+
+    @Override
+    public Iterator<Path> iterator() {
+        if (!open) {
+            throw new IllegalStateException("closed");
+        }
+        if (iterated) {
+            throw new IllegalStateException("already iterated");
+        }
+        iterated = true;
+
+        return new Iterator<>() {
+            private List<Item> collected = new ArrayList<>();
+            private Path next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && open) {
+                    try {
+                        if (!items.hasNext()) {
+                            complete();
+                            return false;
+                        }
+                        Item item = items.next();
+                        collect(item);
+                        Path path = dir.resolve(item.getName());
+                        if (filter == null || filter.accept(path)) {
+                            next = path;
+                        }
+                    } catch (UncheckedIOException e) {
+                        throw new DirectoryIteratorException(e.getCause());
+                    } catch (IOException e) {
+                        throw new DirectoryIteratorException(e);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public Path next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Path path = next;
+                next = null;
+                return path;
+            }
+
+            private void collect(Item item) {
+                if (collected != null) {
+                    if (collected.size() < MAX_CACHED_ITEMS) {
+                        collected.add(item);
+                    } else {
+                        collected = null;
+                    }
+                }
+            }
+
+            private void complete() {
+                if (collected != null) {
+                    onComplete.accept(collected);
+                    collected = null;
+                }
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        open = false;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import com.box.sdkgen.client.BoxClient;
+import com.box.sdkgen.networking.fetchoptions.FetchOptions;
+import com.fasterxml.jackson.databind.JsonNode;
+
+
+/**
+ * BoxEventStream.
+ * <p>
+ * reads box's "changes" event stream by stream positions.
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ * @see "https://developer.box.com/guides/events/user-events/"
+ */
+public final class BoxEventStream {
+
+    private static final int LIMIT = 500;
+
+    /** seconds, when the realtime server does not tell */
+    private static final long DEFAULT_RETRY_TIMEOUT = 610;
+
+    private final BoxClient client;
+
+    public BoxEventStream(BoxClient client) {
+        this.client = client;
+    }
+
+    /** @return the current position */
+    public String now() throws IOException {
+        return getEvents("now").get("next_stream_position").asText();
+    }
+
+    /**
+     * reads all events after the position.
+     * @return the next position
+     */
+    public String read(String position, Consumer<JsonNode> consumer) throws IOException {
+        while (true) {
+            JsonNode events = getEvents(position);
+            events.get("entries").forEach(consumer);
+            String next = events.get("next_stream_position").asText();
+            if (events.get("entries").size() < LIMIT || next.equals(position)) {
+                return next;
+            }
+            position = next;
+        }
+    }
+
+    /** @return a realtime server to long poll */
+    public JsonNode getRealtimeServer() throws IOException {
+        return request("OPTIONS", baseUrl() + "/events", Map.of()).get("entries").get(0);
+    }
+
+    /**
+     * waits for a change after the position, at most the server's "retry_timeout".
+     * @param executor runs the request, which is abandoned at the timeout
+     * @return "new_change", "reconnect" or others, "reconnect" also when timed out
+     */
+    public String longPoll(JsonNode server, String position, Executor executor) throws IOException {
+        long timeout = server.has("retry_timeout") ? server.get("retry_timeout").asLong() : DEFAULT_RETRY_TIMEOUT;
+        CompletableFuture<JsonNode> response = CompletableFuture.supplyAsync(() -> {
+            try {
+                return request("GET", server.get("url").asText(), Map.of("stream_position", position));
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+        try {
+            return response.get(timeout, TimeUnit.SECONDS).get("message").asText();
+        } catch (TimeoutException e) {
+            response.cancel(true);
+            return "reconnect";
+        } catch (InterruptedException e) {
+            response.cancel(true);
+            throw (IOException) new InterruptedIOException("long poll interrupted").initCause(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            if (isTimeout(cause)) {
+                return "reconnect";
+            }
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        }
+    }
+
+    /** a read timeout of the http client */
+    private static boolean isTimeout(Throwable t) {
+        for (; t != null; t = t.getCause()) {
+            if (t instanceof SocketTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private JsonNode getEvents(String position) throws IOException {
+        return request("GET", baseUrl() + "/events", Map.of("stream_type", "changes", "stream_position", position, "limit", String.valueOf(LIMIT)));
+    }
+
+    private String baseUrl() {
+        return client.networkSession.getBaseUrls().getBaseUrl() + "/2.0";
+    }
+
+    private JsonNode request(String method, String url, Map<String, String> params) throws IOException {
+        try {
+            return client.makeRequest(new FetchOptions.Builder(url, method).params(params).build()).getData();
+        } catch (RuntimeException e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * BoxEvents.
+ * <p>
+ * flight recorder events of a box file system, named {@code com.github.fge.filesystem.box.*}.
+ * fields are set only when {@link Event#shouldCommit()}, so an event costs almost nothing
+ * while not recorded.
+ * </p>
+ * <pre>
+ * jcmd &lt;pid&gt; JFR.start settings=profile
+ * jfr print --events 'com.github.fge.filesystem.box.*' recording.jfr
+ * </pre>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+final class BoxEvents {
+
+    private BoxEvents() {}
+
+    /** a round trip to the box api, one per attempt */
+    @Name("com.github.fge.filesystem.box.Api")
+    @Label("Box API Call")
+    @Category({"Box", "Network"})
+    @StackTrace(false)
+    static final class ApiEvent extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Item ID")
+        String itemId;
+
+        @Label("Path")
+        String path;
+
+        @Label("HTTP Error Status")
+        @Description("the status of an error response, 0 when succeeded, -1 when failed without a response")
+        int errorStatus;
+
+        @Label("Retry")
+        int retry;
+    }
+
+    /** a lookup answered from memory or not */
+    @Name("com.github.fge.filesystem.box.Cache")
+    @Label("Box Cache Lookup")
+    @Category({"Box", "Cache"})
+    @StackTrace(false)
+    static final class CacheEvent extends Event {
+        @Label("Cache")
+        @Description("pathTrie, folderIndex or directory")
+        String cache;
+
+        @Label("Path")
+        String path;
+
+        @Label("Hit")
+        boolean hit;
+    }
+
+    /** an upload or a download of content */
+    @Name("com.github.fge.filesystem.box.Transfer")
+    @Label("Box Transfer")
+    @Category({"Box", "Network"})
+    @StackTrace(false)
+    static final class TransferEvent extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Item ID")
+        String itemId;
+
+        @Label("Path")
+        String path;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+    }
+
+    /** an instant event */
+    static void cache(String cache, Path path, boolean hit) {
+        CacheEvent event = new CacheEvent();
+        if (event.shouldCommit()) {
+            event.cache = cache;
+            event.path = String.valueOf(path);
+            event.hit = hit;
+            event.commit();
+        }
+    }
+
+    /** @return begun, finish it by {@link #commit(TransferEvent, String, String, Path, long)} */
+    static TransferEvent transfer() {
+        TransferEvent event = new TransferEvent();
+        event.begin();
+        return event;
+    }
+
+    static void commit(TransferEvent event, String operation, String itemId, Path path, long bytes) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.itemId = itemId;
+            event.path = path != null ? path.toString() : null;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    /** @return a stream which commits the event with the bytes read when it is closed */
+    static InputStream commitOnClose(TransferEvent event, String operation, String itemId, Path path, InputStream is) {
+        return new FilterInputStream(is) {
+            long bytes;
+            boolean closed;
+
+            @Override
+            public int read() throws IOException {
+                int r = super.read();
+                if (r >= 0) {
+                    bytes++;
+                }
+                return r;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int r = super.read(b, off, len);
+                if (r > 0) {
+                    bytes += r;
+                }
+                return r;
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    if (!closed) {
+                        closed = true;
+                        commit(event, operation, itemId, path, bytes);
+                    }
+                }
+            }
+        };
+    }
+}
@@ -1,22 +1,130 @@
 package com.github.fge.filesystem.box;
 
 import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import com.box.sdkgen.client.BoxClient;
+import com.box.sdkgen.schemas.userfull.UserFull;
 import com.github.fge.filesystem.attributes.FileAttributesFactory;
+import com.github.fge.filesystem.box.BoxRequestScheduler.Priority;
 import com.github.fge.filesystem.filestore.FileStoreBase;
 
 
 public final class BoxFileStore extends FileStoreBase {
 
-    private final long totalSize;
+    private static final Logger logger = System.getLogger(BoxFileStore.class.getName());
 
     private final BoxClient client;
 
+    /** space amount and used at a time */
+    private record Quota(long amount, long used, long fetched) {}
+
+    /** millis */
+    static final long DEFAULT_QUOTA_TTL = 60 * 1000;
+
+    private final long quotaTtl;
+
+    /** null until the first use, not fetched at mount */
+    private volatile Quota quota;
+
+    /** the fetch in flight */
+    private CompletableFuture<Quota> fetcher;
+
+    /** of the driver, null until attached */
+    private volatile BoxRequestScheduler scheduler;
+
+    /** of the driver, the caller's thread until attached */
+    private volatile Executor executor = Runnable::run;
+
     public BoxFileStore(BoxClient client, FileAttributesFactory factory) {
+        this(client, factory, DEFAULT_QUOTA_TTL);
+    }
+
+    /** @param quotaTtl millis the quota is reused for */
+    public BoxFileStore(BoxClient client, FileAttributesFactory factory, long quotaTtl) {
         super("box", factory, false);
         this.client = client;
-        totalSize = client.users.getUserMe().getSpaceAmount();
+        this.quotaTtl = quotaTtl;
+    }
+
+    /** fetches go through the scheduler and the executor of the driver */
+    void attach(BoxRequestScheduler scheduler, Executor executor) {
+        this.scheduler = scheduler;
+        this.executor = executor;
+    }
+
+    private UserFull getUserMe() throws IOException {
+        BoxRequestScheduler scheduler = this.scheduler;
+        if (scheduler != null) {
+            return scheduler.call(Priority.METADATA, "getUserMe", () -> client.users.getUserMe());
+        } else {
+            return client.users.getUserMe();
+        }
+    }
+
+    /**
+     * the first use waits for the fetch, after that an expired quota is returned
+     * while a new one is fetched in the background.
+     */
+    private Quota getQuota() throws IOException {
+        Quota quota = this.quota;
+        if (quota != null) {
+            if (System.currentTimeMillis() - quota.fetched() > quotaTtl) {
+                fetch();
+            }
+            return quota;
+        }
+        try {
+            return fetch().join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof IOException f ? f : new IOException(e.getCause());
+        }
+    }
+
+    /** concurrent callers share the same fetch */
+    private synchronized CompletableFuture<Quota> fetch() {
+        if (fetcher != null) {
+            return fetcher;
+        }
+        CompletableFuture<Quota> future = new CompletableFuture<>();
+        fetcher = future;
+        future.whenComplete((quota, e) -> {
+            synchronized (this) {
+                if (fetcher == future) {
+                    fetcher = null;
+                }
+                if (quota != null) {
+                    this.quota = quota;
+                } else {
+                    logger.log(Level.WARNING, "quota: " + e.getMessage(), e);
+                }
+            }
+        });
+        try {
+            executor.execute(() -> {
+                try {
+                    UserFull user = getUserMe();
+                    future.complete(new Quota(user.getSpaceAmount(), user.getSpaceUsed(), System.currentTimeMillis()));
+                } catch (IOException | RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /** reflects an upload or a delete until the next fetch */
+    synchronized void addUsed(long delta) {
+        Quota quota = this.quota;
+        if (quota != null && delta != 0) {
+            this.quota = new Quota(quota.amount(), Math.max(0, quota.used() + delta), quota.fetched());
+        }
     }
 
     /**
@@ -28,7 +136,7 @@ public final class BoxFileStore extends FileStoreBase {
      */
     @Override
     public long getTotalSpace() throws IOException {
-        return totalSize;
+        return getQuota().amount();
     }
 
     /**
@@ -48,7 +156,8 @@ public final class BoxFileStore extends FileStoreBase {
      */
     @Override
     public long getUsableSpace() throws IOException {
-        return totalSize - client.users.getUserMe().getSpaceUsed();
+        Quota quota = getQuota();
+        return Math.max(0, quota.amount() - quota.used());
     }
 
     /**
@@ -66,6 +175,7 @@ public final class BoxFileStore extends FileStoreBase {
      */
     @Override
     public long getUnallocatedSpace() throws IOException {
-        return 0;
+        // box has no reserved space
+        return getUsableSpace();
     }
 }
@@ -4,30 +4,51 @@ import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.lang.System.Logger;
 import java.lang.System.Logger.Level;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.AccessDeniedException;
 import java.nio.file.AccessMode;
 import java.nio.file.CopyOption;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileStore;
+import java.nio.file.FileSystemException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.WatchEvent.Kind;
 import java.nio.file.WatchService;
+import java.nio.file.attribute.FileAttribute;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
 import javax.annotation.ParametersAreNonnullByDefault;
 
 import com.box.sdkgen.box.errors.BoxAPIError;
 import com.box.sdkgen.client.BoxClient;
+import com.box.sdkgen.managers.downloads.DownloadFileHeaders;
+import com.box.sdkgen.managers.downloads.DownloadFileQueryParams;
 import com.box.sdkgen.managers.files.CopyFileQueryParams;
 import com.box.sdkgen.managers.files.CopyFileRequestBody;
 import com.box.sdkgen.managers.files.CopyFileRequestBodyParentField;
+import com.box.sdkgen.managers.files.GetFileByIdQueryParams;
 import com.box.sdkgen.managers.files.UpdateFileByIdQueryParams;
 import com.box.sdkgen.managers.files.UpdateFileByIdRequestBody;
 import com.box.sdkgen.managers.files.UpdateFileByIdRequestBodyParentField;
@@ -37,6 +58,8 @@ import com.box.sdkgen.managers.folders.CopyFolderRequestBodyParentField;
 import com.box.sdkgen.managers.folders.CreateFolderQueryParams;
 import com.box.sdkgen.managers.folders.CreateFolderRequestBody;
 import com.box.sdkgen.managers.folders.CreateFolderRequestBodyParentField;
+import com.box.sdkgen.managers.folders.DeleteFolderByIdQueryParams;
+import com.box.sdkgen.managers.folders.GetFolderByIdQueryParams;
 import com.box.sdkgen.managers.folders.GetFolderItemsQueryParams;
 import com.box.sdkgen.managers.folders.UpdateFolderByIdQueryParams;
 import com.box.sdkgen.managers.folders.UpdateFolderByIdRequestBody;
@@ -44,16 +67,42 @@ import com.box.sdkgen.managers.folders.UpdateFolderByIdRequestBodyParentField;
 import com.box.sdkgen.managers.uploads.UploadFileRequestBody;
 import com.box.sdkgen.managers.uploads.UploadFileRequestBodyAttributesField;
 import com.box.sdkgen.managers.uploads.UploadFileRequestBodyAttributesParentField;
+import com.box.sdkgen.managers.uploads.UploadFileVersionHeaders;
+import com.box.sdkgen.managers.uploads.UploadFileVersionQueryParams;
+import com.box.sdkgen.managers.uploads.UploadFileVersionRequestBody;
+import com.box.sdkgen.managers.uploads.UploadFileVersionRequestBodyAttributesField;
 import com.box.sdkgen.schemas.filefull.FileFullPermissionsField;
 import com.box.sdkgen.schemas.files.Files;
+import com.box.sdkgen.schemas.folderfull.FolderFull;
+import com.box.sdkgen.schemas.folderfull.FolderFullPermissionsField;
 import com.box.sdkgen.schemas.item.Item;
-import com.box.sdkgen.schemas.items.Items;
+import com.github.fge.filesystem.box.BoxEvents.TransferEvent;
+import com.github.fge.filesystem.box.BoxRequestScheduler.Priority;
+import com.github.fge.filesystem.box.BoxWatchService.Change;
 import com.github.fge.filesystem.driver.DoubleCachedFileSystemDriver;
 import com.github.fge.filesystem.provider.FileSystemFactoryProvider;
-import vavi.nio.file.Util;
 
+import static com.github.fge.filesystem.box.BoxFileSystemProvider.ENV_BLOCK_CACHE_DIR;
+import static com.github.fge.filesystem.box.BoxFileSystemProvider.ENV_BLOCK_CACHE_SIZE;
+import static com.github.fge.filesystem.box.BoxFileSystemProvider.ENV_BLOCK_SIZE;
+import static com.github.fge.filesystem.box.BoxFileSystemProvider.ENV_CHUNKED_UPLOAD_THRESHOLD;
+import static com.github.fge.filesystem.box.BoxFileSystemProvider.ENV_DOWNLOAD_CHUNK_SIZE;
+import static com.github.fge.filesystem.box.BoxFileSystemProvider.ENV_DOWNLOAD_CONCURRENCY;
+import static com.github.fge.filesystem.box.BoxFileSystemProvider.ENV_FOLDER_INDEX_SIZE;
+import static com.github.fge.filesystem.box.BoxFileSystemProvider.ENV_METADATA_SNAPSHOT;
+import static com.github.fge.filesystem.box.BoxFileSystemProvider.ENV_NOTIFICATION_WINDOW;
+import static com.github.fge.filesystem.box.BoxFileSystemProvider.ENV_PAGE_SIZE;
+import static com.github.fge.filesystem.box.BoxFileSystemProvider.ENV_PREFETCH;
+import static com.github.fge.filesystem.box.BoxFileSystemProvider.ENV_PREFETCH_CONCURRENCY;
+import static com.github.fge.filesystem.box.BoxFileSystemProvider.ENV_RANGED_DOWNLOAD_THRESHOLD;
+import static com.github.fge.filesystem.box.BoxFileSystemProvider.ENV_REQUEST_CONCURRENCY;
+import static com.github.fge.filesystem.box.BoxFileSystemProvider.ENV_REQUEST_RATE;
+import static com.github.fge.filesystem.box.BoxFileSystemProvider.ENV_SKIP_UNCHANGED_UPLOAD;
+import static com.github.fge.filesystem.box.BoxFileSystemProvider.ENV_STREAMING_UPLOAD;
+import static com.github.fge.filesystem.box.BoxFileSystemProvider.ENV_UPLOAD_CONCURRENCY;
 import static com.github.fge.filesystem.box.BoxFileSystemProvider.ENV_USE_SYSTEM_WATCHER;
 import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
 import static vavi.nio.file.Util.toFilenameString;
 
 
@@ -69,8 +118,108 @@ public final class BoxFileSystemDriver extends DoubleCachedFileSystemDriver<Item
 
     private BoxWatchService systemWatcher;
 
+    private static final long DEFAULT_NOTIFICATION_WINDOW = 200;
+
+    /** null when notifications are applied at once */
+    private BoxNotificationCoalescer notificationCoalescer;
+
     private final BoxClient client;
-    private final Item root;
+
+    /** published by jmx while mounted */
+    private final BoxMetrics metrics = new BoxMetrics();
+
+    /** all api calls go through this */
+    private final BoxRequestScheduler scheduler;
+
+    /** concurrent listings of the same folder share one */
+    private final BoxSingleFlight<String, List<Item>> listings = new BoxSingleFlight<>();
+
+    /** concurrent lookups of the same item share one */
+    private final BoxSingleFlight<String, Item> lookups = new BoxSingleFlight<>();
+
+    /** for the space quota */
+    private final BoxFileStore boxFileStore;
+
+    /** the well-known id of "All Files" */
+    private static final String ROOT_ID = "0";
+
+    /** synthesized from {@link #ROOT_ID} at first, replaced by the fetched one */
+    private volatile Item root;
+
+    /** fetches details of the root at the first access */
+    private CompletableFuture<Void> rootFetcher;
+
+    /** box allows up to 1000 items per page */
+    private static final int DEFAULT_PAGE_SIZE = 1000;
+
+    private final int pageSize;
+
+    private static final int DEFAULT_FOLDER_INDEX_SIZE = 1000;
+
+    /** child names of listed folders */
+    private final BoxFolderIndex folderIndex;
+
+    /** resolved paths */
+    private final BoxPathTrie pathTrie;
+
+    private static final long DEFAULT_CHUNKED_UPLOAD_THRESHOLD = 50 * 1024 * 1024;
+
+    private final long chunkedUploadThreshold;
+
+    private final BoxChunkedUploader chunkedUploader;
+
+    /** upload while writing */
+    private final boolean streamingUpload;
+
+    /** skips uploading unchanged content */
+    private final boolean skipUnchangedUpload;
+
+    /** a chunk handed to the request body of a streaming upload, 256KB */
+    private static final int STREAMING_UPLOAD_CHUNK_SIZE = 256 * 1024;
+    /** chunks queued for the request body, 4MB with {@link #STREAMING_UPLOAD_CHUNK_SIZE} */
+    private static final int STREAMING_UPLOAD_CHUNKS = 16;
+
+    private static final long DEFAULT_RANGED_DOWNLOAD_THRESHOLD = 32 * 1024 * 1024;
+
+    private final long rangedDownloadThreshold;
+
+    private final int downloadChunkSize;
+
+    private final int downloadConcurrency;
+
+    private static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    /** for random access */
+    private final int blockSize;
+
+    /** blocks kept in memory per channel */
+    private static final int CHANNEL_BLOCKS = 16;
+
+    /** folders listed at once by a prefetch */
+    private final int prefetchConcurrency;
+
+    /** prefetched at the first access, null when disabled */
+    private final String prefetchPath;
+
+    private CompletableFuture<Void> mountPrefetch;
+
+    /** null when disabled */
+    private final Path snapshotFile;
+
+    /** the event stream position the caches are valid from, for the snapshot */
+    private String streamPosition;
+
+    private volatile boolean restored;
+
+    /** on-disk content cache, null when disabled */
+    private final BoxBlockCache blockCache;
+
+    /** for parallel transfers */
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "vavi-nio-file-box");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     public BoxFileSystemDriver(FileStore fileStore,
                                FileSystemFactoryProvider factoryProvider,
@@ -79,50 +228,328 @@ public final class BoxFileSystemDriver extends DoubleCachedFileSystemDriver<Item
 
         super(fileStore, factoryProvider);
         this.client = Objects.requireNonNull(client);
-        this.root = new Item(client.folders.getFolderById("0"));
+        this.boxFileStore = fileStore instanceof BoxFileStore store ? store : null;
+        this.scheduler = new BoxRequestScheduler(getEnv(env, ENV_REQUEST_RATE, BoxRequestScheduler.DEFAULT_RATE),
+                (int) getEnv(env, ENV_REQUEST_CONCURRENCY, BoxRequestScheduler.DEFAULT_CONCURRENCY), metrics);
+        if (boxFileStore != null) {
+            boxFileStore.attach(scheduler, executor);
+        }
+        this.root = new Item(new FolderFull.Builder(ROOT_ID).name("All Files").build());
         setEnv(env);
 
         @SuppressWarnings("unchecked")
         boolean useSystemWatcher = (Boolean) ((Map<String, Object>) env).getOrDefault(ENV_USE_SYSTEM_WATCHER, false);
+        @SuppressWarnings("unchecked")
+        boolean streamingUpload = (Boolean) ((Map<String, Object>) env).getOrDefault(ENV_STREAMING_UPLOAD, false);
+        this.streamingUpload = streamingUpload;
+        @SuppressWarnings("unchecked")
+        boolean skipUnchangedUpload = (Boolean) ((Map<String, Object>) env).getOrDefault(ENV_SKIP_UNCHANGED_UPLOAD, false);
+        this.skipUnchangedUpload = skipUnchangedUpload;
+        this.pageSize = (int) Math.max(1, Math.min(DEFAULT_PAGE_SIZE, getEnv(env, ENV_PAGE_SIZE, DEFAULT_PAGE_SIZE)));
+        this.pathTrie = new BoxPathTrie(root);
+        this.folderIndex = new BoxFolderIndex((int) getEnv(env, ENV_FOLDER_INDEX_SIZE, DEFAULT_FOLDER_INDEX_SIZE), pathTrie::removeChildren);
+        this.chunkedUploadThreshold = Math.max(BoxChunkedUploader.MIN_SIZE, getEnv(env, ENV_CHUNKED_UPLOAD_THRESHOLD, DEFAULT_CHUNKED_UPLOAD_THRESHOLD));
+        this.chunkedUploader = new BoxChunkedUploader(client, scheduler, metrics, executor, (int) getEnv(env, ENV_UPLOAD_CONCURRENCY, 4));
+        this.rangedDownloadThreshold = getEnv(env, ENV_RANGED_DOWNLOAD_THRESHOLD, DEFAULT_RANGED_DOWNLOAD_THRESHOLD);
+        this.downloadChunkSize = (int) Math.max(64 * 1024, getEnv(env, ENV_DOWNLOAD_CHUNK_SIZE, 8 * 1024 * 1024));
+        this.downloadConcurrency = (int) Math.max(1, getEnv(env, ENV_DOWNLOAD_CONCURRENCY, 4));
+        this.blockSize = (int) Math.max(4 * 1024, getEnv(env, ENV_BLOCK_SIZE, DEFAULT_BLOCK_SIZE));
+        long blockCacheSize = getEnv(env, ENV_BLOCK_CACHE_SIZE, 0);
+        if (blockCacheSize > 0) {
+            Object dir = env.get(ENV_BLOCK_CACHE_DIR);
+            Path blockCacheDir = dir != null ? Paths.get(dir.toString()) : BoxBlockCache.getDefaultDir();
+            this.blockCache = BoxBlockCache.open(blockCacheDir, blockCacheSize, blockSize);
+        } else {
+            this.blockCache = null;
+        }
+        this.entryFields = blockCache != null ? withSha1(ENTRY_FIELDS) : ENTRY_FIELDS;
+        this.notificationFields = blockCache != null ? withSha1(NOTIFICATION_FIELDS) : NOTIFICATION_FIELDS;
+        this.prefetchConcurrency = (int) getEnv(env, ENV_PREFETCH_CONCURRENCY, BoxPrefetcher.DEFAULT_CONCURRENCY);
+        Object prefetchPath = env.get(ENV_PREFETCH);
+        this.prefetchPath = prefetchPath instanceof Boolean b ? (b ? "/" : null) : prefetchPath != null ? prefetchPath.toString() : null;
+        metrics.gauge("folderIndexSize", folderIndex::size);
+        metrics.gauge("folderIndexEvictions", folderIndex::getEvictions);
+        metrics.gauge("pathTrieSize", pathTrie::size);
+        metrics.gauge("requestQueueDepth", scheduler::getQueueDepth);
+        metrics.gauge("requestsInFlight", scheduler::getInFlight);
+        metrics.gauge("requestConcurrencyLimit", scheduler::getLimit);
+        metrics.gauge("requestsThrottled", scheduler::getThrottledCount);
+        if (blockCache != null) {
+            metrics.gauge("blockCacheBytes", blockCache::size);
+            metrics.gauge("blockCacheHits", blockCache::getHits);
+            metrics.gauge("blockCacheMisses", blockCache::getMisses);
+            metrics.gauge("blockCacheEvictions", blockCache::getEvictions);
+        }
+        metrics.register();
+        Object snapshotFile = env.get(ENV_METADATA_SNAPSHOT);
+        this.snapshotFile = snapshotFile != null ? Paths.get(snapshotFile.toString()) : null;
         if (useSystemWatcher) {
             systemWatcher = new BoxWatchService(client);
-            systemWatcher.setNotificationListener(this::processNotification);
+            long notificationWindow = getEnv(env, ENV_NOTIFICATION_WINDOW, DEFAULT_NOTIFICATION_WINDOW);
+            if (notificationWindow > 0) {
+                notificationCoalescer = new BoxNotificationCoalescer(notificationWindow, this::processNotifications);
+                systemWatcher.setChangeListener(notificationCoalescer::add);
+            } else {
+                // the type tells which of files or folders to look up
+                systemWatcher.setChangeListener(change -> processNotification(change.id(), change.type(), change.kind()));
+            }
         }
     }
 
-    /** for system watcher */
-    private void processNotification(String id, Kind<?> kind) {
+    /** for numeric env values */
+    @SuppressWarnings("unchecked")
+    private static long getEnv(Map<String, ?> env, String key, long defaultValue) {
+        return ((Number) ((Map<String, Object>) env).getOrDefault(key, defaultValue)).longValue();
+    }
+
+    /** for fractional env values */
+    @SuppressWarnings("unchecked")
+    private static double getEnv(Map<String, ?> env, String key, double defaultValue) {
+        return ((Number) ((Map<String, Object>) env).getOrDefault(key, defaultValue)).doubleValue();
+    }
+
+    /**
+     * for system watcher
+     * @param type "file", "folder" or null if unknown
+     */
+    private void processNotification(String id, String type, Kind<?> kind) {
+        folderIndex.invalidateParentOf(id);
+        folderIndex.invalidate(id);
+        Path path = pathTrie.getPath(id);
         if (ENTRY_DELETE == kind) {
-            try {
-                Path path = cache.getEntry(e -> id.equals(e.getId()));
+            if (path != null) {
+                pathTrie.remove(path);
                 cache.removeEntry(path);
-            } catch (NoSuchElementException e) {
+            } else {
 logger.log(Level.TRACE, "NOTIFICATION: already deleted: " + id);
             }
         } else {
             try {
-                try {
-                    Path path = cache.getEntry(e -> id.equals(e.getId()));
+                if (path != null) {
 logger.log(Level.TRACE, "NOTIFICATION: maybe updated: " + path);
+                    pathTrie.remove(path);
                     cache.removeEntry(path);
-                    cache.getEntry(path);
-                } catch (NoSuchElementException e) {
-// TODO impl
-//                    BoxItem entry = BoxFile.client.files().getMetadata(pathString);
-//                    Path path = parent.resolve(pathString);
-//logger.log(Level.TRACE, "NOTIFICATION: maybe created: " + path);
-//                    cache.addEntry(path, entry);
                 }
-            } catch (NoSuchElementException e) {
-logger.log(Level.TRACE, "NOTIFICATION: parent not found: " + e);
-            } catch (IOException e) {
+                Item entry = getItem(id, type);
+                if (entry == null) {
+logger.log(Level.TRACE, "NOTIFICATION: already deleted: " + id);
+                    return;
+                }
+                String parentId = getParentId(entry);
+                Path parent = parentId != null ? pathTrie.getPath(parentId) : null;
+                if (parent != null) {
+                    Path newPath = parent.resolve(entry.getName());
+logger.log(Level.TRACE, "NOTIFICATION: maybe created: " + newPath);
+                    folderIndex.add(parentId, entry);
+                    pathTrie.put(newPath, entry);
+                    cache.addEntry(newPath, entry);
+                } else {
+logger.log(Level.TRACE, "NOTIFICATION: parent not cached: " + parentId);
+                }
+            } catch (IOException | RuntimeException e) {
                 logger.log(Level.ERROR, e.getMessage(), e);
             }
         }
     }
 
-    /** */
-    private static final List<String> ENTRY_FIELDS = List.of("name", "size", "created_at", "modified_at", "permissions");
+    /**
+     * for system watcher, coalesced.
+     * deleted items are dropped, other changes are applied by listing each affected folder once.
+     * a renamed or moved folder is re-keyed with its subtree as a local move does.
+     */
+    private void processNotifications(Collection<Change> changes) {
+        Set<String> folders = new LinkedHashSet<>();
+        for (Change change : changes) {
+            folderIndex.invalidate(change.id());
+            Path path = pathTrie.getPath(change.id());
+            if (path != null) {
+                // old location
+                Path parent = path.getParent();
+                Item parentEntry = parent != null ? pathTrie.get(parent) : null;
+                folderIndex.remove(change.id());
+                Item item = pathTrie.get(path);
+                Path target = change.kind() != ENTRY_DELETE ? getPath(change) : null;
+                if (target != null && item != null && isFolder(item)) {
+                    if (!target.equals(path)) {
+logger.log(Level.TRACE, "NOTIFICATION: moved: " + path + " -> " + target);
+                        pathTrie.forEach(path, (p, i) -> cache.removeEntry(p));
+                        pathTrie.move(path, target, item);
+                    }
+                } else {
+                    pathTrie.remove(path);
+                    cache.removeEntry(path);
+                }
+                if (parentEntry != null && change.kind() != ENTRY_DELETE) {
+                    folders.add(parentEntry.getId());
+                }
+            }
+            if (change.kind() != ENTRY_DELETE) {
+                if (change.parentId() != null) {
+                    folders.add(change.parentId());
+                } else {
+                    processNotification(change.id(), change.type(), change.kind());
+                }
+            }
+        }
+logger.log(Level.DEBUG, "NOTIFICATION: changes: " + changes.size() + ", folders: " + folders.size());
+        for (String folderId : folders) {
+            try {
+                refreshFolder(folderId);
+            } catch (IOException | RuntimeException e) {
+                logger.log(Level.ERROR, e.getMessage(), e);
+            }
+        }
+    }
+
+    /** @return null if the new parent is not resolved */
+    private Path getPath(Change change) {
+        Path dir = change.parentId() != null && change.name() != null ? pathTrie.getPath(change.parentId()) : null;
+        return dir != null ? dir.resolve(change.name()) : null;
+    }
+
+    /** lists a cached folder again, ignored if the folder is not cached */
+    private void refreshFolder(String folderId) throws IOException {
+        Path dir = pathTrie.getPath(folderId);
+        if (dir == null || !(cache.containsFolder(dir) || folderIndex.contains(folderId))) {
+            folderIndex.invalidate(folderId);
+            return;
+        }
+logger.log(Level.TRACE, "NOTIFICATION: refresh: " + dir);
+        List<Item> items = new ArrayList<>();
+        folderItems(folderId, pageSize).forEachRemaining(items::add);
+        if (cache.containsFolder(dir)) {
+            Set<String> names = new HashSet<>();
+            items.forEach(item -> names.add(getFilenameString(item)));
+            for (Path child : new ArrayList<>(cache.getFolder(dir))) {
+                if (!names.contains(toFilenameString(child))) {
+                    cache.removeEntry(child);
+                }
+            }
+        }
+        onListed(dir, folderId, items);
+    }
+
+    /** updates caches by a complete listing of a folder */
+    private void onListed(Path dir, String folderId, List<Item> items) {
+        List<Path> children = new ArrayList<>(items.size());
+        for (Item item : items) {
+            Path child = dir.resolve(getFilenameString(item));
+            children.add(child);
+            cache.putFile(child, item);
+        }
+        cache.putFolder(dir, children);
+        folderIndex.put(folderId, items);
+        pathTrie.putChildren(dir, items);
+    }
+
+    /**
+     * @param type "file", "folder" or null if unknown, then a file is tried first
+     * @return null if not found
+     */
+    private Item getItem(String id, String type) throws IOException {
+        return lookups.execute(id, () -> fetchItem(id, type));
+    }
+
+    private Item fetchItem(String id, String type) throws IOException {
+        if (!"folder".equals(type)) {
+            try {
+                return new Item(scheduler.call(Priority.METADATA, "getFileById", id, null, () -> client.files.getFileById(id, new GetFileByIdQueryParams.Builder().fields(notificationFields).build())));
+            } catch (BoxAPIError e) {
+                if (!e.getMessage().contains("404")) {
+                    throw e;
+                }
+                if ("file".equals(type)) {
+                    return null;
+                }
+            }
+        }
+        try {
+            return new Item(scheduler.call(Priority.METADATA, "getFolderById", id, null, () -> client.folders.getFolderById(id, new GetFolderByIdQueryParams.Builder().fields(notificationFields).build())));
+        } catch (BoxAPIError e) {
+            if (e.getMessage().contains("404")) {
+                return null;
+            } else {
+                throw e;
+            }
+        }
+    }
+
+    /** @return null for the root */
+    private static String getParentId(Item entry) {
+        if (entry.getFileFull() != null) {
+            return entry.getFileFull().getParent() != null ? entry.getFileFull().getParent().getId() : null;
+        } else {
+            return entry.getFolderFull().getParent() != null ? entry.getFolderFull().getParent().getId() : null;
+        }
+    }
+
+    /**
+     * for listings and responses of changes, type, id and etag come without asking.
+     * file_version pins range requests to the listed size.
+     * fields apply to files and folders alike, so folders come with their size too,
+     * which adjusts the quota locally when a folder is deleted
+     */
+    private static final List<String> ENTRY_FIELDS = List.of("name", "size", "created_at", "modified_at", "file_version");
+
+    /** for lookups by id, with the parent */
+    private static final List<String> NOTIFICATION_FIELDS = List.of("name", "size", "created_at", "modified_at", "file_version", "parent");
+
+    /** a page of one item only tells a folder is not empty */
+    private static final List<String> PROBE_FIELDS = List.of("name");
+
+    /** expensive for box to compute, fetched by {@link #getDetails(Item)} only when asked */
+    private static final List<String> FILE_DETAIL_FIELDS = List.of("permissions", "size", "sha1");
+
+    /** a folder has no sha1, its size is already listed by {@link #ENTRY_FIELDS} */
+    private static final List<String> FOLDER_DETAIL_FIELDS = List.of("permissions");
+
+    /** the number of items whose details are kept */
+    private static final int MAX_DETAILS = 1000;
+
+    /** {@link #ENTRY_FIELDS}, with sha1 when the block cache is enabled because it is the key */
+    private final List<String> entryFields;
+
+    /** {@link #NOTIFICATION_FIELDS}, with sha1 when the block cache is enabled */
+    private final List<String> notificationFields;
+
+    /** details by id, valid while the etag is the same, least recently used ones are evicted */
+    private final Map<String, Item> details = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Item> eldest) {
+            return size() > MAX_DETAILS;
+        }
+    });
+
+    private static List<String> withSha1(List<String> fields) {
+        List<String> list = new ArrayList<>(fields);
+        list.add("sha1");
+        return List.copyOf(list);
+    }
+
+    private static String getEtagOf(Item entry) {
+        if (entry.getFileFull() != null) {
+            return entry.getFileFull().getEtag();
+        } else {
+            return entry.getFolderFull() != null ? entry.getFolderFull().getEtag() : null;
+        }
+    }
+
+    /** @return the entry with {@link #FILE_DETAIL_FIELDS} or {@link #FOLDER_DETAIL_FIELDS} only, fetched once per version */
+    private Item getDetails(Item entry) throws IOException {
+        Item cached = details.get(entry.getId());
+        if (cached != null && Objects.equals(getEtagOf(cached), getEtagOf(entry))) {
+            return cached;
+        }
+        String id = entry.getId();
+        Item fetched;
+        if (isFolder(entry)) {
+            fetched = new Item(scheduler.call(Priority.METADATA, "getFolderById", id, null, () -> client.folders.getFolderById(id, new GetFolderByIdQueryParams.Builder().fields(FOLDER_DETAIL_FIELDS).build())));
+        } else {
+            fetched = new Item(scheduler.call(Priority.METADATA, "getFileById", id, null, () -> client.files.getFileById(id, new GetFileByIdQueryParams.Builder().fields(FILE_DETAIL_FIELDS).build())));
+        }
+        details.put(id, fetched);
+        return fetched;
+    }
 
     @Override
     protected String getFilenameString(Item entry) {
@@ -136,21 +563,238 @@ logger.log(Level.TRACE, "NOTIFICATION: parent not found: " + e);
 
     @Override
     protected Item getRootEntry(Path root) throws IOException {
+        if (snapshotFile != null && !restored) {
+            restoreSnapshot(root);
+        }
+        if (rootFetcher == null) {
+            fetchRoot(root);
+        }
+        if (prefetchPath != null && mountPrefetch == null) {
+            prefetchOnMount(root);
+        }
         return this.root;
     }
 
+    /** paths are made from the root path, so this waits for the first access */
+    private synchronized void prefetchOnMount(Path root) {
+        if (mountPrefetch == null) {
+            mountPrefetch = prefetch(root.resolve(prefetchPath));
+        }
+    }
+
+    /**
+     * lists the subtree of the folder in parallel and caches it,
+     * a walk after this is served from memory.
+     * @return completed when the whole subtree is listed
+     */
+    public CompletableFuture<Void> prefetch(Path dir) {
+        return BoxPrefetcher.prefetch(dir.toAbsolutePath(), this::prefetchFolder, prefetchConcurrency);
+    }
+
+    /** @return child folders */
+    private List<Path> prefetchFolder(Path dir) throws IOException {
+        Item dirEntry = cache.getEntry(dir);
+        if (!isFolder(dirEntry)) {
+            return List.of();
+        }
+        List<Item> items = listFolder(dirEntry.getId());
+        onListed(dir, dirEntry.getId(), items);
+        List<Path> folders = new ArrayList<>();
+        for (Item item : items) {
+            if (isFolder(item)) {
+                folders.add(dir.resolve(getFilenameString(item)));
+            }
+        }
+        return folders;
+    }
+
+    /** the synthesized root is enough to resolve paths, so details are not waited for */
+    private synchronized void fetchRoot(Path root) {
+        if (rootFetcher != null) {
+            return;
+        }
+        rootFetcher = CompletableFuture.runAsync(() -> {
+            Item entry;
+            try {
+                entry = new Item(scheduler.call(Priority.METADATA, "getFolderById", ROOT_ID, root, () -> client.folders.getFolderById(ROOT_ID)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.root = entry;
+            pathTrie.put(root, entry);
+logger.log(Level.DEBUG, "root fetched: " + entry.getId());
+        }, executor).exceptionally(e -> {
+            logger.log(Level.WARNING, "root: " + e.getMessage(), e);
+            return null;
+        });
+    }
+
+    /**
+     * loads the snapshot at the first access, because paths are made from the root path.
+     * changes since the snapshot are applied from the event stream, a snapshot which
+     * can not be brought up to date is discarded.
+     */
+    private synchronized void restoreSnapshot(Path root) {
+        if (restored) {
+            return;
+        }
+        restored = true;
+        BoxEventStream eventStream = new BoxEventStream(client);
+        try {
+            if (java.nio.file.Files.exists(snapshotFile)) {
+                BoxMetadataSnapshot snapshot = BoxMetadataSnapshot.load(snapshotFile);
+                Map<String, Change> changes = new LinkedHashMap<>();
+                String next = scheduler.call(Priority.METADATA, "getEvents", () -> eventStream.read(snapshot.getStreamPosition(), event -> {
+                    Change change = BoxWatchService.toChange(event);
+                    if (change != null) {
+                        changes.merge(change.id(), change, BoxNotificationCoalescer::merge);
+                    }
+                }));
+                restoreEntries(root, snapshot.getEntries());
+logger.log(Level.DEBUG, "snapshot: " + snapshotFile + ", entries: " + snapshot.getEntries().size() + ", changes: " + changes.size());
+                processNotifications(changes.values());
+                streamPosition = next;
+            } else {
+                streamPosition = scheduler.call(Priority.METADATA, "getEvents", eventStream::now);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, "snapshot discarded: " + snapshotFile, e);
+            try {
+                streamPosition = scheduler.call(Priority.METADATA, "getEvents", eventStream::now);
+            } catch (IOException f) {
+                logger.log(Level.WARNING, f.getMessage(), f);
+            }
+        }
+    }
+
+    private void restoreEntries(Path root, List<BoxMetadataSnapshot.Entry> entries) {
+        Map<Path, List<Item>> listings = new LinkedHashMap<>();
+        for (BoxMetadataSnapshot.Entry entry : entries) {
+            Path path = root.getFileSystem().getPath(entry.path());
+            if (path.getNameCount() > 0) {
+                pathTrie.put(path, entry.item());
+                cache.putFile(path, entry.item());
+                List<Item> siblings = listings.get(path.getParent());
+                if (siblings != null) {
+                    siblings.add(entry.item());
+                }
+            }
+            if (entry.listed()) {
+                listings.put(path, new ArrayList<>());
+            }
+        }
+        listings.forEach((dir, items) -> {
+            List<Path> children = new ArrayList<>(items.size());
+            items.forEach(item -> children.add(dir.resolve(getFilenameString(item))));
+            cache.putFolder(dir, children);
+            Item dirEntry = pathTrie.get(dir);
+            if (dirEntry != null) {
+                folderIndex.put(dirEntry.getId(), items);
+            }
+        });
+    }
+
+    /** saves resolved entries with the position they are valid from */
+    private void saveSnapshot() throws IOException {
+        List<BoxMetadataSnapshot.Entry> entries = new ArrayList<>();
+        pathTrie.forEach((path, item) -> entries.add(new BoxMetadataSnapshot.Entry(path.toString(), cache.containsFolder(path), item)));
+        new BoxMetadataSnapshot(streamPosition, entries).save(snapshotFile);
+logger.log(Level.DEBUG, "snapshot: " + snapshotFile + ", entries: " + entries.size());
+    }
+
     @Override
-    protected Item getEntry(Item parentEntry, Path path) throws IOException {
+    public void close() throws IOException {
         try {
-            // TODO use query (when a directory has huge amount of files, this breaks down)
-            Items items = client.folders.getFolderItems(parentEntry.getId(), new GetFolderItemsQueryParams.Builder().fields(ENTRY_FIELDS).build());
-            if (items == null) {
-logger.log(Level.TRACE, "empty folder: " + parentEntry.getName());
-                return null;
+            if (notificationCoalescer != null) {
+                notificationCoalescer.close();
+            }
+            if (systemWatcher != null) {
+                systemWatcher.close();
+            }
+            if (snapshotFile != null && streamPosition != null) {
+                saveSnapshot();
+            }
+        } finally {
+            // released even if the snapshot is not saved
+            if (mountPrefetch != null) {
+                mountPrefetch.cancel(true);
+            }
+            executor.shutdownNow();
+            if (blockCache != null) {
+                blockCache.close();
+            }
+            metrics.unregister();
+            super.close();
+        }
+    }
+
+    /**
+     * @param limit items per page
+     * @return lazy iterator over all pages of the folder
+     */
+    private BoxFolderItemsIterator folderItems(String folderId, long limit) {
+        return folderItems(folderId, limit, entryFields);
+    }
+
+    /**
+     * @param limit items per page
+     * @param fields of each item
+     * @return lazy iterator over all pages of the folder
+     */
+    private BoxFolderItemsIterator folderItems(String folderId, long limit, List<String> fields) {
+        return new BoxFolderItemsIterator(marker -> {
+            GetFolderItemsQueryParams.Builder builder = new GetFolderItemsQueryParams.Builder().fields(fields).usemarker(true).limit(limit);
+            if (marker != null) {
+                builder.marker(marker);
             }
+            return scheduler.call(Priority.METADATA, "getFolderItems", folderId, null, () -> client.folders.getFolderItems(folderId, builder.build()));
+        });
+    }
 
-            return items.getEntries().stream().filter(i -> i.getName().equals(path.getFileName().toString())).findFirst().orElse(null);
+    /** lists all pages and indexes them, concurrent callers for the same folder share one listing */
+    private List<Item> listFolder(String folderId) throws IOException {
+        return listings.execute(folderId, () -> {
+            List<Item> entries = new ArrayList<>();
+            BoxFolderItemsIterator items = folderItems(folderId, pageSize);
+            items.forEachRemaining(entries::add);
+logger.log(Level.TRACE, "index folder: " + folderId + ", items: " + entries.size() + ", pages: " + items.getPages());
+            folderIndex.put(folderId, entries);
+            return entries;
+        });
+    }
 
+    @Override
+    protected Item getEntry(Item parentEntry, Path path) throws IOException {
+        Item resolved = pathTrie.get(path);
+        if (resolved != null) {
+            folderIndex.touch(parentEntry.getId()); // keeps the children in the trie
+            metrics.cacheHit();
+            BoxEvents.cache("pathTrie", path, true);
+            return resolved;
+        }
+        try {
+            String folderId = parentEntry.getId();
+            String filename = toFilenameString(path);
+            if (folderIndex.contains(folderId)) {
+                Item item = folderIndex.get(folderId, filename);
+                if (item != null || folderIndex.contains(folderId)) { // not evicted meanwhile
+                    if (item != null) {
+                        pathTrie.put(path, item);
+                    }
+                    metrics.cacheHit();
+                    BoxEvents.cache("folderIndex", path, true);
+                    return item;
+                }
+            }
+            metrics.cacheMiss();
+            BoxEvents.cache("folderIndex", path, false);
+
+            List<Item> entries = listFolder(folderId);
+            Item item = entries.stream().filter(i -> i.getName().equals(filename)).findFirst().orElse(null);
+            if (item != null) {
+                pathTrie.put(path, item);
+            }
+            return item;
         } catch (BoxAPIError e) {
             if (e.getMessage().contains("404")) {
                 return null;
@@ -160,109 +804,449 @@ logger.log(Level.TRACE, "empty folder: " + parentEntry.getName());
         }
     }
 
+    /** the transfer event lasts until the download is opened */
     @Override
     protected InputStream downloadEntryImpl(Item entry, Path path, Set<? extends OpenOption> options) throws IOException {
-        return new BufferedInputStream(client.downloads.downloadFile(entry.getId()));
+        TransferEvent event = BoxEvents.transfer();
+        long size = getSize(entry);
+        InputStream is;
+        try {
+            if (size > rangedDownloadThreshold) {
+logger.log(Level.DEBUG, "ranged download: " + path + ", size: " + size + ", chunk: " + downloadChunkSize + ", concurrency: " + downloadConcurrency);
+                is = new BoxRangedInputStream(rangeReader(entry), size, downloadChunkSize, downloadConcurrency, executor);
+            } else if (isCacheable(entry)) {
+                is = new BoxRangedInputStream(rangeReader(entry), size, downloadChunkSize, 1, executor);
+            } else {
+                is = new BufferedInputStream(metrics.countIn(scheduler.call(Priority.CONTENT, "downloadFile", entry.getId(), path, () -> client.downloads.downloadFile(entry.getId()))));
+            }
+        } catch (IOException | RuntimeException e) {
+            BoxEvents.commit(event, "download", entry.getId(), path, 0);
+            throw e;
+        }
+        // the event spans until the stream is closed with the bytes actually read
+        return BoxEvents.commitOnClose(event, "download", entry.getId(), path, is);
+    }
+
+    /** reading is served by range requests, writing is the same as the default */
+    @Override
+    public SeekableByteChannel newByteChannel(Path path, Set<? extends OpenOption> options, FileAttribute<?>... attrs) throws IOException {
+        if (options != null && (options.contains(StandardOpenOption.WRITE) || options.contains(StandardOpenOption.APPEND))) {
+            return super.newByteChannel(path, options, attrs);
+        }
+        Item entry = cache.getEntry(path);
+        if (isFolder(entry)) {
+            throw new FileSystemException(path.toString(), null, "is a directory");
+        }
+logger.log(Level.DEBUG, "random access: " + path + ", block: " + blockSize);
+        return new BoxSeekableByteChannel(rangeReader(entry), getSize(entry), blockSize, CHANNEL_BLOCKS);
+    }
+
+    /** @return 0 if unknown */
+    private static long getFolderSize(Item entry) {
+        return entry.getFolderFull() != null && entry.getFolderFull().getSize() != null ? entry.getFolderFull().getSize() : 0;
+    }
+
+    /** the quota is adjusted locally until the next fetch */
+    private void addUsed(long delta) {
+        if (boxFileStore != null) {
+            boxFileStore.addUsed(delta);
+        }
+    }
+
+    private static long getSize(Item entry) {
+        return entry.getFileFull() != null && entry.getFileFull().getSize() != null ? entry.getFileFull().getSize() : 0;
+    }
+
+    /** @return true if the content can be cached on disk */
+    private boolean isCacheable(Item entry) {
+        return blockCache != null && entry.getFileFull() != null && entry.getFileFull().getSha1() != null;
+    }
+
+    /** @return null if not fetched */
+    private static String getVersionId(Item entry) {
+        return entry.getFileFull() != null && entry.getFileFull().getFileVersion() != null ? entry.getFileFull().getFileVersion().getId() : null;
+    }
+
+    /**
+     * reads a part of a file through the on-disk cache if enabled.
+     * ranges are pinned to the version of the entry, so they match its size and sha1
+     * even when the file is updated meanwhile.
+     */
+    private BoxRangeReader rangeReader(Item entry) {
+        BoxRangeReader reader = rangeReader(entry.getId(), getVersionId(entry));
+        return isCacheable(entry) ? blockCache.reader(entry.getId(), entry.getFileFull().getSha1(), getSize(entry), reader) : reader;
+    }
+
+    /**
+     * reads a part of a file by a range request
+     * @param versionId null means the current version
+     */
+    private BoxRangeReader rangeReader(String fileId, String versionId) {
+        DownloadFileQueryParams queryParams = versionId != null ? new DownloadFileQueryParams.Builder().version(versionId).build() : new DownloadFileQueryParams();
+        return (offset, length) -> scheduler.call(Priority.CONTENT, "downloadFile", fileId, null, () -> {
+            String range = "bytes=" + offset + "-" + (offset + length - 1);
+            TransferEvent event = BoxEvents.transfer();
+            try (InputStream is = client.downloads.downloadFile(fileId, queryParams, new DownloadFileHeaders.Builder().range(range).build())) {
+                byte[] bytes = is.readNBytes(length);
+                metrics.addBytesIn(bytes.length);
+                BoxEvents.commit(event, "readRange", fileId, null, bytes.length);
+                if (bytes.length != length) {
+                    throw new IOException("short read: " + fileId + ", " + range + ", " + bytes.length);
+                }
+                return bytes;
+            }
+        });
+    }
+
+    /** uploads by one request */
+    private Item uploadFile(Item parentEntry, Path path, InputStream is) throws IOException {
+        Files files = scheduler.callOnce(Priority.CONTENT, "uploadFile", parentEntry.getId(), path, () -> client.uploads.uploadFile(new UploadFileRequestBody.Builder(
+                new UploadFileRequestBodyAttributesField.Builder(toFilenameString(path),
+                        new UploadFileRequestBodyAttributesParentField(parentEntry.getId())).build(), metrics.countOut(is)).build()));
+        return new Item(files.getEntries().get(0));
+    }
+
+    /** uploads a closed content */
+    private Item upload(Item parentEntry, Path path, BoxUploadOutputStream content) throws IOException {
+        if (content.isSpooled()) {
+            return new Item(chunkedUploader.upload(parentEntry.getId(), toFilenameString(path), content));
+        } else {
+            return uploadFile(parentEntry, path, content.getInputStream());
+        }
+    }
+
+    /** updates caches by an uploaded entry */
+    private void onUploaded(Item parentEntry, Path path, Item newEntry) throws IOException {
+        Item oldEntry = pathTrie.get(path);
+        addUsed(getSize(newEntry) - (oldEntry != null && oldEntry.getId().equals(newEntry.getId()) ? getSize(oldEntry) : 0));
+        folderIndex.add(parentEntry.getId(), newEntry);
+        pathTrie.put(path, newEntry);
+        updateEntry(path, newEntry);
     }
 
     @Override
     protected OutputStream uploadEntry(Item parentEntry, Path path, Set<? extends OpenOption> options) throws IOException {
-        return new Util.OutputStreamForUploading() {
+        if (streamingUpload) {
+            return new BoxStreamingUploadOutputStream(executor, STREAMING_UPLOAD_CHUNK_SIZE, STREAMING_UPLOAD_CHUNKS) {
+                @Override
+                protected Item upload(InputStream is) throws IOException {
+                    return uploadFile(parentEntry, path, is);
+                }
+
+                @Override
+                protected void onUploaded(Item newEntry) throws IOException {
+                    BoxFileSystemDriver.this.onUploaded(parentEntry, path, newEntry);
+                }
+            };
+        }
+        return new BoxUploadOutputStream(chunkedUploadThreshold) {
             @Override
             protected void onClosed() throws IOException {
-                InputStream is = getInputStream();
-                Files files = client.uploads.uploadFile(new UploadFileRequestBody.Builder(
-                        new UploadFileRequestBodyAttributesField.Builder(toFilenameString(path),
-                                new UploadFileRequestBodyAttributesParentField(parentEntry.getId())).build(), is).build());
-                Item newEntry = new Item(files.getEntries().get(0));
-                updateEntry(path, newEntry);
+                TransferEvent event = BoxEvents.transfer();
+                try {
+                    onUploaded(parentEntry, path, upload(parentEntry, path, this));
+                } finally {
+                    BoxEvents.commit(event, "upload", parentEntry.getId(), path, size());
+                }
             }
         };
     }
 
+    /**
+     * writing to an existing file uploads a new version of it instead of delete and create,
+     * the id is kept.
+     */
+    @Override
+    public OutputStream newOutputStream(Path path, Set<? extends OpenOption> options) throws IOException {
+        Item entry = getExistingFile(path, options);
+        if (entry == null) {
+            return super.newOutputStream(path, options);
+        }
+        Item parentEntry = cache.getEntry(path.toAbsolutePath().getParent());
+        if (streamingUpload && !skipUnchangedUpload) {
+            return new BoxStreamingUploadOutputStream(executor, STREAMING_UPLOAD_CHUNK_SIZE, STREAMING_UPLOAD_CHUNKS) {
+                @Override
+                protected Item upload(InputStream is) throws IOException {
+                    return uploadFileVersion(entry, path, is);
+                }
+
+                @Override
+                protected void onUploaded(Item newEntry) throws IOException {
+                    BoxFileSystemDriver.this.onUploaded(parentEntry, path, newEntry);
+                }
+            };
+        }
+        return new BoxUploadOutputStream(chunkedUploadThreshold) {
+            @Override
+            protected void onClosed() throws IOException {
+                if (skipUnchangedUpload && isUnchanged(getDetails(entry), this)) {
+logger.log(Level.DEBUG, "upload skipped, unchanged: " + path);
+                    return;
+                }
+                TransferEvent event = BoxEvents.transfer();
+                try {
+                    Item newEntry;
+                    if (isSpooled()) {
+                        try {
+                            newEntry = new Item(chunkedUploader.uploadVersion(entry.getId(), getEtag(entry), this));
+                        } catch (BoxAPIError e) {
+                            if (isConflict(e)) {
+                                throw toConflict(e, entry, path);
+                            }
+                            throw e;
+                        }
+                    } else {
+                        newEntry = uploadFileVersion(entry, path, getInputStream());
+                    }
+                    onUploaded(parentEntry, path, newEntry);
+                } finally {
+                    BoxEvents.commit(event, "uploadVersion", entry.getId(), path, size());
+                }
+            }
+        };
+    }
+
+    /** uploads a new version by one request, fails if the file is changed since the entry is got */
+    private Item uploadFileVersion(Item entry, Path path, InputStream is) throws IOException {
+        UploadFileVersionHeaders.Builder headers = new UploadFileVersionHeaders.Builder();
+        String etag = getEtag(entry);
+        if (etag != null) {
+            headers.ifMatch(etag);
+        }
+        try {
+            Files files = scheduler.callOnce(Priority.CONTENT, "uploadFileVersion", entry.getId(), path, () -> client.uploads.uploadFileVersion(entry.getId(), new UploadFileVersionRequestBody.Builder(
+                    new UploadFileVersionRequestBodyAttributesField(toFilenameString(path)), metrics.countOut(is)).build(), new UploadFileVersionQueryParams(), headers.build()));
+            return new Item(files.getEntries().get(0));
+        } catch (BoxAPIError e) {
+            if (isConflict(e)) {
+                throw toConflict(e, entry, path);
+            }
+            throw e;
+        }
+    }
+
+    private static String getEtag(Item entry) {
+        return entry.getFileFull() != null ? entry.getFileFull().getEtag() : null;
+    }
+
+    /** 412 means the file is changed by another */
+    private static boolean isConflict(BoxAPIError e) {
+        return e.getResponseInfo() != null && e.getResponseInfo().getStatusCode() == 412;
+    }
+
+    /** the entry is fetched again, so a next write is matched against the other's version */
+    private FileSystemException toConflict(BoxAPIError e, Item entry, Path path) {
+        details.remove(entry.getId());
+        processNotification(entry.getId(), "file", ENTRY_MODIFY);
+        return (FileSystemException) new FileSystemException(path.toString(), null, "modified by another: " + e.getMessage()).initCause(e);
+    }
+
+    /** @return null if the file does not exist or is not overwritten */
+    private Item getExistingFile(Path path, Set<? extends OpenOption> options) throws IOException {
+        if (options != null && (options.contains(StandardOpenOption.CREATE_NEW) || options.contains(StandardOpenOption.APPEND))) {
+            return null;
+        }
+        try {
+            Item entry = cache.getEntry(path);
+            return isFolder(entry) ? null : entry;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * compares sha1 and size of a closed content to the existing file
+     * @param details has size and sha1 of the same version
+     */
+    private static boolean isUnchanged(Item details, BoxUploadOutputStream content) {
+        String sha1 = details.getFileFull() != null ? details.getFileFull().getSha1() : null;
+        return sha1 != null && getSize(details) == content.size() && sha1.equalsIgnoreCase(HexFormat.of().formatHex(content.sha1()));
+    }
+
     @Override
     protected List<Item> getDirectoryEntries(Item dirEntry, Path dir) throws IOException {
 logger.log(Level.DEBUG, dirEntry.getName());
-        // TODO box api has pagination
-        Items items = client.folders.getFolderItems(dirEntry.getId(), new GetFolderItemsQueryParams.Builder().fields(ENTRY_FIELDS).build());
-        return items != null ? items.getEntries() : Collections.emptyList();
+        List<Item> entries = new ArrayList<>(listFolder(dirEntry.getId()));
+        pathTrie.putChildren(dir, entries);
+        return entries;
+    }
+
+    /**
+     * streams a folder which is not cached yet page by page instead of listing it at once.
+     * a completely consumed listing is put into the cache.
+     */
+    @Override
+    public DirectoryStream<Path> newDirectoryStream(Path dir, DirectoryStream.Filter<? super Path> filter) throws IOException {
+        if (cache.containsFolder(dir)) {
+            metrics.cacheHit();
+            BoxEvents.cache("directory", dir, true);
+            return super.newDirectoryStream(dir, filter);
+        }
+        metrics.cacheMiss();
+        BoxEvents.cache("directory", dir, false);
+        Item dirEntry = cache.getEntry(dir);
+        if (!isFolder(dirEntry)) {
+            throw new NotDirectoryException(dir.toString());
+        }
+        return new BoxDirectoryStream(dir, folderItems(dirEntry.getId(), pageSize), filter, items -> onListed(dir, dirEntry.getId(), items));
     }
 
     @Override
     protected Item createDirectoryEntry(Item parentEntry, Path dir) throws IOException {
-        return new Item(client.folders.createFolder(new CreateFolderRequestBody.Builder(toFilenameString(dir), new CreateFolderRequestBodyParentField(parentEntry.getId())).build(), new CreateFolderQueryParams.Builder().fields(ENTRY_FIELDS).build()));
+        Item newEntry = new Item(scheduler.call(Priority.METADATA, "createFolder", parentEntry.getId(), dir, () -> client.folders.createFolder(new CreateFolderRequestBody.Builder(toFilenameString(dir), new CreateFolderRequestBodyParentField(parentEntry.getId())).build(), new CreateFolderQueryParams.Builder().fields(entryFields).build())));
+        folderIndex.add(parentEntry.getId(), newEntry);
+        pathTrie.put(dir, newEntry);
+        return newEntry;
     }
 
     @Override
     protected boolean hasChildren(Item dirEntry, Path dir) throws IOException {
-        return !getDirectoryEntries(dir, false).isEmpty();
+        // a fresh one item page is enough to tell
+        return folderItems(dirEntry.getId(), 1, PROBE_FIELDS).hasNext();
     }
 
     @Override
     protected void removeEntry(Item entry, Path path) throws IOException {
-        if (isFolder(entry))
-            client.folders.deleteFolderById(entry.getId());
-        else
-            client.files.deleteFileById(entry.getId());
+        scheduler.call(Priority.METADATA, isFolder(entry) ? "deleteFolderById" : "deleteFileById", entry.getId(), path, () -> {
+            if (isFolder(entry))
+                client.folders.deleteFolderById(entry.getId());
+            else
+                client.files.deleteFileById(entry.getId());
+            return null;
+        });
+        addUsed(-(isFolder(entry) ? getFolderSize(entry) : getSize(entry)));
+        details.remove(entry.getId());
+        folderIndex.remove(entry.getId());
+        folderIndex.invalidate(entry.getId());
+        pathTrie.remove(path);
+    }
+
+    /**
+     * deletes a folder and its subtree by one request, a file is deleted as usual.
+     * the cached subtree is dropped at once.
+     */
+    public void deleteRecursively(Path path) throws IOException {
+        Item entry = cache.getEntry(path);
+        if (!isFolder(entry)) {
+            removeEntry(entry, path);
+            cache.removeEntry(path);
+            return;
+        }
+        if (path.toAbsolutePath().getNameCount() == 0) {
+            throw new FileSystemException(path.toString(), null, "root can not be deleted");
+        }
+        scheduler.call(Priority.METADATA, "deleteFolderById", entry.getId(), path, () -> {
+            client.folders.deleteFolderById(entry.getId(), new DeleteFolderByIdQueryParams.Builder().recursive(true).build());
+            return null;
+        });
+        addUsed(-getFolderSize(entry));
+        folderIndex.remove(entry.getId());
+        List<Path> removed = new ArrayList<>();
+        pathTrie.removeSubtree(path).forEach((p, item) -> {
+            removed.add(p);
+            if (isFolder(item)) {
+                folderIndex.invalidate(item.getId());
+            }
+        });
+        folderIndex.invalidate(entry.getId());
+        // children first
+        for (int i = removed.size() - 1; i > 0; i--) {
+            cache.removeEntry(removed.get(i));
+        }
+        cache.removeEntry(path);
+logger.log(Level.DEBUG, "deleted recursively: " + path + ", cached entries: " + removed.size());
     }
 
     @Override
     protected Item copyEntry(Item sourceEntry, Item targetParentEntry, Path source, Path target, Set<CopyOption> options) throws IOException {
+        Item newEntry;
         if (isFolder(sourceEntry))
-            return new Item(client.folders.copyFolder(sourceEntry.getId(), new CopyFolderRequestBody.Builder(new CopyFolderRequestBodyParentField(targetParentEntry.getId())).build(), new CopyFolderQueryParams.Builder().fields(ENTRY_FIELDS).build()));
+            newEntry = new Item(scheduler.call(Priority.METADATA, "copyFolder", sourceEntry.getId(), source, () -> client.folders.copyFolder(sourceEntry.getId(), new CopyFolderRequestBody.Builder(new CopyFolderRequestBodyParentField(targetParentEntry.getId())).build(), new CopyFolderQueryParams.Builder().fields(entryFields).build())));
         else
-            return new Item(client.files.copyFile(sourceEntry.getId(), new CopyFileRequestBody.Builder(new CopyFileRequestBodyParentField(targetParentEntry.getId())).build(), new CopyFileQueryParams.Builder().fields(ENTRY_FIELDS).build()));
+            newEntry = new Item(scheduler.call(Priority.METADATA, "copyFile", sourceEntry.getId(), source, () -> client.files.copyFile(sourceEntry.getId(), new CopyFileRequestBody.Builder(new CopyFileRequestBodyParentField(targetParentEntry.getId())).build(), new CopyFileQueryParams.Builder().fields(entryFields).build())));
+        folderIndex.add(targetParentEntry.getId(), newEntry);
+        pathTrie.put(target, newEntry);
+        return newEntry;
     }
 
     @Override
     protected Item moveEntry(Item sourceEntry, Item targetParentEntry, Path source, Path target, boolean targetIsParent) throws IOException {
+        Item newEntry;
         if (targetIsParent) {
-            return new Item(client.files.updateFileById(sourceEntry.getId(), new UpdateFileByIdRequestBody.Builder().parent(new UpdateFileByIdRequestBodyParentField.Builder().id(targetParentEntry.getId()).build()).build(), new UpdateFileByIdQueryParams.Builder().fields(ENTRY_FIELDS).build()));
+            newEntry = new Item(scheduler.call(Priority.METADATA, "updateFileById", sourceEntry.getId(), source, () -> client.files.updateFileById(sourceEntry.getId(), new UpdateFileByIdRequestBody.Builder().parent(new UpdateFileByIdRequestBodyParentField.Builder().id(targetParentEntry.getId()).build()).build(), new UpdateFileByIdQueryParams.Builder().fields(entryFields).build())));
         } else {
-            return new Item(client.files.updateFileById(sourceEntry.getId(), new UpdateFileByIdRequestBody.Builder().parent(new UpdateFileByIdRequestBodyParentField.Builder().id(targetParentEntry.getId()).build()).name(toFilenameString(target)).build(), new UpdateFileByIdQueryParams.Builder().fields(ENTRY_FIELDS).build()));
+            newEntry = new Item(scheduler.call(Priority.METADATA, "updateFileById", sourceEntry.getId(), source, () -> client.files.updateFileById(sourceEntry.getId(), new UpdateFileByIdRequestBody.Builder().parent(new UpdateFileByIdRequestBodyParentField.Builder().id(targetParentEntry.getId()).build()).name(toFilenameString(target)).build(), new UpdateFileByIdQueryParams.Builder().fields(entryFields).build())));
         }
+        folderIndex.remove(sourceEntry.getId());
+        folderIndex.add(targetParentEntry.getId(), newEntry);
+        pathTrie.move(source, (targetIsParent ? target : target.getParent()).resolve(newEntry.getName()), newEntry);
+        return newEntry;
     }
 
     @Override
     protected Item moveFolderEntry(Item sourceEntry, Item targetParentEntry, Path source, Path target, boolean targetIsParent) throws IOException {
-        Item patchedEntry = new Item(client.folders.updateFolderById(sourceEntry.getId(), new UpdateFolderByIdRequestBody.Builder().parent(new UpdateFolderByIdRequestBodyParentField.Builder().id(targetParentEntry.getId()).build()).build(), new UpdateFolderByIdQueryParams.Builder().fields(ENTRY_FIELDS).build()));
+        Item patchedEntry = new Item(scheduler.call(Priority.METADATA, "updateFolderById", sourceEntry.getId(), source, () -> client.folders.updateFolderById(sourceEntry.getId(), new UpdateFolderByIdRequestBody.Builder().parent(new UpdateFolderByIdRequestBodyParentField.Builder().id(targetParentEntry.getId()).build()).build(), new UpdateFolderByIdQueryParams.Builder().fields(entryFields).build())));
 logger.log(Level.TRACE, patchedEntry.getId() + ", " + (patchedEntry.getFolderFull().getParent() != null ? patchedEntry.getFolderFull().getParent().getName() : "") + "/" + patchedEntry.getName());
+        folderIndex.remove(sourceEntry.getId());
+        folderIndex.add(targetParentEntry.getId(), patchedEntry);
+        pathTrie.move(source, (targetIsParent ? target : target.getParent()).resolve(patchedEntry.getName()), patchedEntry);
         return patchedEntry;
     }
 
     @Override
     protected Item renameEntry(Item sourceEntry, Item targetParentEntry, Path source, Path target) throws IOException {
+        Item newEntry;
         if (isFolder(sourceEntry))
-            return new Item(client.folders.updateFolderById(sourceEntry.getId(), new UpdateFolderByIdRequestBody.Builder().name(toFilenameString(target)).build(), new UpdateFolderByIdQueryParams.Builder().fields(ENTRY_FIELDS).build()));
+            newEntry = new Item(scheduler.call(Priority.METADATA, "updateFolderById", sourceEntry.getId(), source, () -> client.folders.updateFolderById(sourceEntry.getId(), new UpdateFolderByIdRequestBody.Builder().name(toFilenameString(target)).build(), new UpdateFolderByIdQueryParams.Builder().fields(entryFields).build())));
         else
-            return new Item(client.files.updateFileById(sourceEntry.getId(), new UpdateFileByIdRequestBody.Builder().name(toFilenameString(target)).build(), new UpdateFileByIdQueryParams.Builder().fields(ENTRY_FIELDS).build()));
+            newEntry = new Item(scheduler.call(Priority.METADATA, "updateFileById", sourceEntry.getId(), source, () -> client.files.updateFileById(sourceEntry.getId(), new UpdateFileByIdRequestBody.Builder().name(toFilenameString(target)).build(), new UpdateFileByIdQueryParams.Builder().fields(entryFields).build())));
+        folderIndex.remove(sourceEntry.getId());
+        folderIndex.add(targetParentEntry.getId(), newEntry);
+        pathTrie.move(source, target, newEntry);
+        return newEntry;
     }
 
+    /** permissions are fetched only when a mode is asked, no mode means an existence check */
     @Override
     protected void checkAccessEntry(Item entry, Path path, AccessMode... modes) throws IOException {
+        if (modes.length == 0) {
+            return;
+        }
+
+        Item details = getDetails(entry);
+        Boolean canDownload;
+        Boolean canUpload;
+        if (details.getFileFull() != null && details.getFileFull().getPermissions() != null) {
+            FileFullPermissionsField permissions = details.getFileFull().getPermissions();
+            canDownload = permissions.getCanDownload();
+            canUpload = permissions.getCanUpload();
+        } else if (details.getFolderFull() != null && details.getFolderFull().getPermissions() != null) {
+            FolderFullPermissionsField permissions = details.getFolderFull().getPermissions();
+            canDownload = permissions.getCanDownload();
+            canUpload = permissions.getCanUpload();
+        } else {
+            return;
+        }
 
         final Set<AccessMode> set = EnumSet.noneOf(AccessMode.class);
 
-        FileFullPermissionsField permissions = entry.getFileFull().getPermissions();
-        if (permissions != null) {
-            for (AccessMode mode : modes) {
-                switch (mode) {
-                case READ:
-                    if (!permissions.getCanDownload()) {
-                        set.add(AccessMode.READ);
-                    }
-                    break;
-                case WRITE:
-                    if (!permissions.getCanUpload()) {
-                        set.add(AccessMode.WRITE);
-                    }
-                    break;
-                case EXECUTE:
-                    if (!permissions.getCanDownload()) { // TODO
-                        set.add(AccessMode.EXECUTE);
-                    }
-                    break;
+        for (AccessMode mode : modes) {
+            switch (mode) {
+            case READ:
+                if (Boolean.FALSE.equals(canDownload)) {
+                    set.add(AccessMode.READ);
+                }
+                break;
+            case WRITE:
+                if (Boolean.FALSE.equals(canUpload)) {
+                    set.add(AccessMode.WRITE);
+                }
+                break;
+            case EXECUTE:
+                if (Boolean.FALSE.equals(canDownload)) { // TODO
+                    set.add(AccessMode.EXECUTE);
                 }
+                break;
             }
         }
 
@@ -271,10 +1255,27 @@ logger.log(Level.TRACE, patchedEntry.getId() + ", " + (patchedEntry.getFolderFul
         }
     }
 
+    /** directories are registered by their folder ids */
     @Override
     public WatchService newWatchService() {
         try {
-            return new BoxWatchService(client);
+            BoxWatchService watchService = new BoxWatchService(client);
+            watchService.setFolderResolver(new BoxWatchService.FolderResolver() {
+                @Override
+                public String getId(Path dir) throws IOException {
+                    Item entry = cache.getEntry(dir);
+                    if (!isFolder(entry)) {
+                        throw new NotDirectoryException(dir.toString());
+                    }
+                    return entry.getId();
+                }
+
+                @Override
+                public Map<String, String> getChildren(String folderId) throws IOException {
+                    return listFolder(folderId).stream().collect(Collectors.toMap(Item::getId, Item::getName));
+                }
+            });
+            return watchService;
         } catch (IOException e) {
             throw new IllegalStateException(e);
         }
@@ -1,6 +1,11 @@
 package com.github.fge.filesystem.box;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
 import com.github.fge.filesystem.driver.DoubleCachedFileSystemDriver;
+import com.github.fge.filesystem.filesystem.GenericFileSystem;
 import com.github.fge.filesystem.provider.FileSystemProviderBase;
 
 
@@ -16,8 +21,100 @@ public final class BoxFileSystemProvider extends FileSystemProviderBase {
 
     public static final String ENV_USE_SYSTEM_WATCHER = "use_system_watcher";
 
+    /** page size of folder item listings, box allows up to 1000 */
+    public static final String ENV_PAGE_SIZE = "page_size";
+
+    /** max number of folders whose child names are indexed */
+    public static final String ENV_FOLDER_INDEX_SIZE = "folder_index_size";
+
+    /** files larger than this (bytes) are uploaded by a chunked upload session, at least 20MB */
+    public static final String ENV_CHUNKED_UPLOAD_THRESHOLD = "chunked_upload_threshold";
+
+    /** number of parts of a chunked upload sent at once */
+    public static final String ENV_UPLOAD_CONCURRENCY = "upload_concurrency";
+
+    /**
+     * uploads while writing instead of after closed, a file is sent by one request.
+     * best-effort: the writer is held to 4MB ahead of the request body, but whether
+     * the body leaves before close depends on the http client of the box sdk. boolean
+     */
+    public static final String ENV_STREAMING_UPLOAD = "streaming_upload";
+
+    /** files larger than this (bytes) are downloaded by parallel range requests */
+    public static final String ENV_RANGED_DOWNLOAD_THRESHOLD = "ranged_download_threshold";
+
+    /** size (bytes) of a range request of a parallel download */
+    public static final String ENV_DOWNLOAD_CHUNK_SIZE = "download_chunk_size";
+
+    /** number of range requests of a parallel download sent at once */
+    public static final String ENV_DOWNLOAD_CONCURRENCY = "download_concurrency";
+
+    /** size (bytes) of a range request of a random access read */
+    public static final String ENV_BLOCK_SIZE = "block_size";
+
+    /** byte budget of the on-disk content cache, 0 disables the cache. mounts sharing a directory share the largest budget */
+    public static final String ENV_BLOCK_CACHE_SIZE = "block_cache_size";
+
+    /** directory of the on-disk content cache, {@link java.nio.file.Path} or string. default is "~/.vavifuse/box/blocks" */
+    public static final String ENV_BLOCK_CACHE_DIR = "block_cache_dir";
+
+    /**
+     * skips writing to an existing file when its sha1 and size are the same
+     * as the written content. boolean
+     */
+    public static final String ENV_SKIP_UNCHANGED_UPLOAD = "skip_unchanged_upload";
+
+    /**
+     * milliseconds to buffer change notifications of the system watcher,
+     * each affected folder is listed once per window. 0 applies each notification at once
+     */
+    public static final String ENV_NOTIFICATION_WINDOW = "notification_window";
+
+    /**
+     * file to save resolved metadata when closed, it is loaded at the next start and
+     * updated by the event stream. {@link java.nio.file.Path} or string
+     */
+    public static final String ENV_METADATA_SNAPSHOT = "metadata_snapshot";
+
+    /** millis the space quota is reused for, refreshed in the background after that */
+    public static final String ENV_QUOTA_TTL = "quota_ttl";
+
+    /**
+     * api requests per second, 0 means unlimited and throttling is left to aimd and Retry-After.
+     * box allows 1000 requests per minute per user, give 16 to stay below it beforehand
+     */
+    public static final String ENV_REQUEST_RATE = "request_rate";
+
+    /** the upper bound of api requests in flight, lowered while throttled */
+    public static final String ENV_REQUEST_CONCURRENCY = "request_concurrency";
+
+    /**
+     * a folder whose subtree is listed in parallel in the background after mount,
+     * path string or {@code true} for the root
+     */
+    public static final String ENV_PREFETCH = "prefetch";
+
+    /** number of folders listed at once by a prefetch */
+    public static final String ENV_PREFETCH_CONCURRENCY = "prefetch_concurrency";
+
     public static final String ENV_DISABLED_FILE_CACHE = DoubleCachedFileSystemDriver.ENV_DISABLED_FILE_CACHE;
 
+    /**
+     * lists the subtree of a folder of a box file system in parallel and caches it.
+     * @return completed when the whole subtree is listed
+     */
+    public static CompletableFuture<Void> prefetch(Path dir) {
+        return ((BoxFileSystemDriver) ((GenericFileSystem) dir.getFileSystem()).getDriver()).prefetch(dir);
+    }
+
+    /**
+     * deletes a folder of a box file system with its subtree by one request,
+     * instead of deleting every descendant.
+     */
+    public static void deleteRecursively(Path path) throws IOException {
+        ((BoxFileSystemDriver) ((GenericFileSystem) path.getFileSystem()).getDriver()).deleteRecursively(path);
+    }
+
     public BoxFileSystemProvider() {
         super(new BoxFileSystemRepository());
     }
@@ -72,8 +72,11 @@ public final class BoxFileSystemRepository extends FileSystemRepositoryBase {
 
         // 3. process
         PropsEntity.Util.bind(this);
-        BoxClient client = getOAuth2(appCredential).authorize(userCredential);
-        FileStore store = new BoxFileStore(client, factoryProvider.getAttributesFactory());
+        // 429 and 503 are retried by the scheduler of the driver
+        BoxClient client = BoxRequestScheduler.withRetryStrategy(getOAuth2(appCredential).authorize(userCredential));
+        @SuppressWarnings("unchecked")
+        long quotaTtl = ((Number) ((Map<String, Object>) env).getOrDefault(BoxFileSystemProvider.ENV_QUOTA_TTL, BoxFileStore.DEFAULT_QUOTA_TTL)).longValue();
+        FileStore store = new BoxFileStore(client, factoryProvider.getAttributesFactory(), quotaTtl);
         return new BoxFileSystemDriver(store, factoryProvider, client, env);
     }
 
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.box.sdkgen.schemas.item.Item;
+
+
+/**
+ * BoxFolderIndex.
+ * <p>
+ * per folder name to item index. an index is made from one complete listing of
+ * a folder, so a missing name means the item does not exist. folders are evicted
+ * in lru order when {@code maxFolders} is exceeded, an eviction listener drops
+ * what is derived from the index, e.g. the folder's children in {@link BoxPathTrie}.
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+final class BoxFolderIndex {
+
+    /** folder id, name, item */
+    private final LinkedHashMap<String, Map<String, Item>> folders;
+
+    /** where an item is indexed */
+    private record Location(String folderId, String name) {}
+
+    /** item id, location */
+    private final Map<String, Location> locations = new HashMap<>();
+
+    /** for metrics */
+    private long evictions;
+
+    BoxFolderIndex(int maxFolders) {
+        this(maxFolders, folderId -> {});
+    }
+
+    /** @param onEvicted called with the id of a folder dropped by the limit */
+    BoxFolderIndex(int maxFolders, Consumer<String> onEvicted) {
+        this.folders = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Map<String, Item>> eldest) {
+                if (size() > maxFolders) {
+                    unlocate(eldest.getKey(), eldest.getValue());
+                    evictions++;
+                    onEvicted.accept(eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /** @return number of indexed folders */
+    synchronized int size() {
+        return folders.size();
+    }
+
+    /** @return number of folders dropped by the limit */
+    synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /** @return true if the folder is indexed */
+    synchronized boolean contains(String folderId) {
+        return folders.containsKey(folderId);
+    }
+
+    /** marks the folder as recently used */
+    synchronized void touch(String folderId) {
+        folders.get(folderId);
+    }
+
+    /** @return null if the folder is not indexed or the name does not exist in the folder */
+    synchronized Item get(String folderId, String name) {
+        Map<String, Item> children = folders.get(folderId);
+        return children != null ? children.get(name) : null;
+    }
+
+    /** replaces the folder's index by a complete listing */
+    synchronized void put(String folderId, List<Item> items) {
+        invalidate(folderId);
+        Map<String, Item> children = new HashMap<>(items.size() * 4 / 3 + 1);
+        for (Item item : items) {
+            children.put(item.getName(), item);
+            locations.put(item.getId(), new Location(folderId, item.getName()));
+        }
+        folders.put(folderId, children);
+    }
+
+    /**
+     * adds or replaces an item if the folder is indexed.
+     * the item's previous location and the location of an other item replaced by the name are dropped.
+     */
+    synchronized void add(String folderId, Item item) {
+        Map<String, Item> children = folders.get(folderId);
+        if (children != null) {
+            Location location = new Location(folderId, item.getName());
+            if (!location.equals(locations.get(item.getId()))) {
+                remove(item.getId());
+            }
+            Item replaced = children.put(item.getName(), item);
+            if (replaced != null && !replaced.getId().equals(item.getId())) {
+                locations.remove(replaced.getId(), location);
+            }
+            locations.put(item.getId(), location);
+        }
+    }
+
+    /** removes an item wherever it is indexed, a folder's own index is kept */
+    synchronized void remove(String itemId) {
+        Location location = locations.remove(itemId);
+        if (location != null) {
+            Map<String, Item> children = folders.get(location.folderId);
+            if (children != null) {
+                children.remove(location.name);
+            }
+        }
+    }
+
+    /** drops the index of the folder where the item is indexed */
+    synchronized void invalidateParentOf(String itemId) {
+        Location location = locations.get(itemId);
+        if (location != null) {
+            invalidate(location.folderId);
+        }
+    }
+
+    /** drops the folder's index */
+    synchronized void invalidate(String folderId) {
+        Map<String, Item> children = folders.remove(folderId);
+        if (children != null) {
+            unlocate(folderId, children);
+        }
+    }
+
+    /** drops locations of the folder's children, unless an item is indexed somewhere else since */
+    private void unlocate(String folderId, Map<String, Item> children) {
+        children.forEach((name, item) -> locations.remove(item.getId(), new Location(folderId, name)));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.box.sdkgen.schemas.item.Item;
+import com.box.sdkgen.schemas.items.Items;
+
+
+/**
+ * BoxFolderItemsIterator.
+ * <p>
+ * walks box's marker based pagination of a folder lazily.
+ * only the current page is held in memory, the next page is requested
+ * when the current one is consumed.
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+final class BoxFolderItemsIterator implements Iterator<Item> {
+
+    private static final Logger logger = System.getLogger(BoxFolderItemsIterator.class.getName());
+
+    /** fetches a page, {@code marker} is null for the first page */
+    @FunctionalInterface
+    interface PageLoader {
+        Items load(String marker) throws IOException;
+    }
+
+    private final PageLoader loader;
+
+    private Iterator<Item> page = Collections.emptyIterator();
+
+    private String marker;
+
+    private boolean exhausted;
+
+    /** for statistics */
+    private int pages;
+
+    BoxFolderItemsIterator(PageLoader loader) {
+        this.loader = loader;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!page.hasNext() && !exhausted) {
+            fetch();
+        }
+        return page.hasNext();
+    }
+
+    @Override
+    public Item next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+
+    /** @return number of pages fetched so far */
+    int getPages() {
+        return pages;
+    }
+
+    private void fetch() {
+        try {
+            Items items = loader.load(marker);
+            pages++;
+            if (items == null || items.getEntries() == null) {
+                exhausted = true;
+                return;
+            }
+            page = items.getEntries().iterator();
+            marker = items.getNextMarker();
+            if (marker == null || marker.isEmpty()) {
+                exhausted = true;
+            }
+logger.log(Level.TRACE, "page: " + pages + ", next: " + marker);
+        } catch (IOException e) {
+            exhausted = true;
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.box.sdkgen.schemas.item.Item;
+import com.box.sdkgen.serialization.json.JsonManager;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+
+/**
+ * BoxMetadataSnapshot.
+ * <p>
+ * resolved entries and the event stream position they are valid at, saved as gzipped json lines.
+ * entries are ordered parents first. the file is written to a temporary file and renamed.
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+final class BoxMetadataSnapshot {
+
+    private static final int VERSION = 1;
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    /** @param listed true if all children of the folder follow */
+    record Entry(String path, boolean listed, Item item) {}
+
+    private final String streamPosition;
+
+    private final List<Entry> entries;
+
+    BoxMetadataSnapshot(String streamPosition, List<Entry> entries) {
+        this.streamPosition = streamPosition;
+        this.entries = entries;
+    }
+
+    String getStreamPosition() {
+        return streamPosition;
+    }
+
+    List<Entry> getEntries() {
+        return entries;
+    }
+
+    void save(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(temp)), StandardCharsets.UTF_8))) {
+            ObjectNode header = mapper.createObjectNode();
+            header.put("version", VERSION);
+            header.put("stream_position", streamPosition);
+            writer.write(header.toString());
+            writer.newLine();
+            for (Entry entry : entries) {
+                ObjectNode json = mapper.createObjectNode();
+                json.put("path", entry.path());
+                json.put("listed", entry.listed());
+                json.set("item", JsonManager.serialize(entry.item()));
+                writer.write(json.toString());
+                writer.newLine();
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /** @throws IOException when the file is broken or of another version */
+    static BoxMetadataSnapshot load(Path file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            JsonNode header = mapper.readTree(reader.readLine());
+            if (header == null || header.path("version").asInt() != VERSION) {
+                throw new IOException("unsupported snapshot: " + file);
+            }
+            List<Entry> entries = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                JsonNode json = mapper.readTree(line);
+                entries.add(new Entry(json.get("path").asText(), json.get("listed").asBoolean(), JsonManager.deserialize(json.get("item"), Item.class)));
+            }
+            return new BoxMetadataSnapshot(header.get("stream_position").asText(), entries);
+        } catch (RuntimeException e) {
+            throw new IOException("broken snapshot: " + file, e);
+        }
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+
+/**
+ * BoxMetrics.
+ * <p>
+ * counters are {@link LongAdder}s and latencies are bucketed histograms,
+ * recording costs a few atomic additions, so this is always on.
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+final class BoxMetrics implements BoxMetricsMXBean {
+
+    private static final Logger logger = System.getLogger(BoxMetrics.class.getName());
+
+    private static final AtomicLong instances = new AtomicLong();
+
+    /**
+     * log-linear buckets of microseconds, 8 sub buckets per power of two,
+     * a percentile is off by 12.5% at most.
+     */
+    static final class Histogram {
+        private static final int SUB_BITS = 3;
+        private static final int SUB = 1 << SUB_BITS;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(SUB + (64 - SUB_BITS) * SUB);
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long micros) {
+            micros = Math.max(0, micros);
+            buckets.incrementAndGet(index(micros));
+            max.accumulateAndGet(micros, Math::max);
+        }
+
+        private static int index(long value) {
+            if (value < SUB) {
+                return (int) value;
+            }
+            int exp = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) (value >>> (exp - SUB_BITS)) & (SUB - 1);
+            return SUB + (exp - SUB_BITS) * SUB + sub;
+        }
+
+        /** @return the upper bound of the bucket */
+        private static long value(int index) {
+            if (index < SUB) {
+                return index;
+            }
+            int exp = (index - SUB) / SUB + SUB_BITS;
+            long sub = (index - SUB) % SUB;
+            return ((SUB + sub + 1) << (exp - SUB_BITS)) - 1;
+        }
+
+        /** @return microseconds */
+        long percentile(double q) {
+            long total = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                total += buckets.get(i);
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(q * total);
+            long count = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                count += buckets.get(i);
+                if (count >= target) {
+                    return Math.min(value(i), max.get());
+                }
+            }
+            return max.get();
+        }
+
+        long max() {
+            return max.get();
+        }
+    }
+
+    /** of an api */
+    private static final class Operation {
+        final LongAdder calls = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder retries = new LongAdder();
+        final Histogram latency = new Histogram();
+    }
+
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+
+    private final LongAdder bytesIn = new LongAdder();
+
+    private final LongAdder bytesOut = new LongAdder();
+
+    private final LongAdder cacheHits = new LongAdder();
+
+    private final LongAdder cacheMisses = new LongAdder();
+
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    private ObjectName name;
+
+    private Operation operation(String name) {
+        return operations.computeIfAbsent(name, k -> new Operation());
+    }
+
+    /** records a finished api call */
+    void record(String operation, long nanos, boolean error) {
+        Operation o = operation(operation);
+        o.calls.increment();
+        if (error) {
+            o.errors.increment();
+        }
+        o.latency.record(nanos / 1000);
+    }
+
+    void retried(String operation) {
+        operation(operation).retries.increment();
+    }
+
+    void addBytesIn(long bytes) {
+        bytesIn.add(bytes);
+    }
+
+    void addBytesOut(long bytes) {
+        bytesOut.add(bytes);
+    }
+
+    void cacheHit() {
+        cacheHits.increment();
+    }
+
+    void cacheMiss() {
+        cacheMisses.increment();
+    }
+
+    /** a value read when the bean is read */
+    void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    /** counts bytes read as downloaded */
+    InputStream countIn(InputStream is) {
+        return new FilterInputStream(is) {
+            @Override
+            public int read() throws IOException {
+                int r = super.read();
+                if (r >= 0) {
+                    bytesIn.increment();
+                }
+                return r;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int r = super.read(b, off, len);
+                if (r > 0) {
+                    bytesIn.add(r);
+                }
+                return r;
+            }
+        };
+    }
+
+    /** counts bytes read as uploaded */
+    InputStream countOut(InputStream is) {
+        return new FilterInputStream(is) {
+            @Override
+            public int read() throws IOException {
+                int r = super.read();
+                if (r >= 0) {
+                    bytesOut.increment();
+                }
+                return r;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int r = super.read(b, off, len);
+                if (r > 0) {
+                    bytesOut.add(r);
+                }
+                return r;
+            }
+        };
+    }
+
+    /** registers this to the platform mbean server, failures are only logged */
+    void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            name = new ObjectName("com.github.fge.filesystem.box:type=BoxFileSystem,name=" + instances.incrementAndGet());
+            server.registerMBean(this, name);
+logger.log(Level.DEBUG, "metrics: " + name);
+        } catch (JMException e) {
+            logger.log(Level.WARNING, "metrics: " + e.getMessage(), e);
+            name = null;
+        }
+    }
+
+    void unregister() {
+        if (name != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            } catch (JMException e) {
+                logger.log(Level.DEBUG, e.getMessage(), e);
+            }
+            name = null;
+        }
+    }
+
+    /** @return null when not registered */
+    ObjectName getName() {
+        return name;
+    }
+
+    private Map<String, Long> longs(ToLongFunction<Operation> f) {
+        Map<String, Long> map = new TreeMap<>();
+        operations.forEach((k, v) -> map.put(k, f.applyAsLong(v)));
+        return map;
+    }
+
+    private Map<String, Double> millis(ToDoubleFunction<Operation> f) {
+        Map<String, Double> map = new TreeMap<>();
+        operations.forEach((k, v) -> map.put(k, f.applyAsDouble(v) / 1000d));
+        return map;
+    }
+
+    @Override
+    public Map<String, Long> getCalls() {
+        return longs(o -> o.calls.sum());
+    }
+
+    @Override
+    public Map<String, Long> getErrors() {
+        return longs(o -> o.errors.sum());
+    }
+
+    @Override
+    public Map<String, Long> getRetries() {
+        return longs(o -> o.retries.sum());
+    }
+
+    @Override
+    public Map<String, Double> getLatencyP50() {
+        return millis(o -> o.latency.percentile(0.5));
+    }
+
+    @Override
+    public Map<String, Double> getLatencyP99() {
+        return millis(o -> o.latency.percentile(0.99));
+    }
+
+    @Override
+    public Map<String, Double> getLatencyMax() {
+        return millis(o -> o.latency.max());
+    }
+
+    @Override
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    @Override
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    @Override
+    public Map<String, Long> getGauges() {
+        Map<String, Long> map = new TreeMap<>();
+        gauges.forEach((k, v) -> map.put(k, v.getAsLong()));
+        return map;
+    }
+
+    @Override
+    public void reset() {
+        operations.clear();
+        bytesIn.reset();
+        bytesOut.reset();
+        cacheHits.reset();
+        cacheMisses.reset();
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.util.Map;
+
+
+/**
+ * BoxMetricsMXBean.
+ * <p>
+ * metrics of a box file system, registered as
+ * {@code com.github.fge.filesystem.box:type=BoxFileSystem,name=<n>}.
+ * per operation values are keyed by the api name, e.g. "getFolderItems".
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+public interface BoxMetricsMXBean {
+
+    /** @return api calls per operation */
+    Map<String, Long> getCalls();
+
+    /** @return failed api calls per operation */
+    Map<String, Long> getErrors();
+
+    /** @return throttled and retried api calls per operation */
+    Map<String, Long> getRetries();
+
+    /** @return median latency per operation in milliseconds */
+    Map<String, Double> getLatencyP50();
+
+    /** @return 99th percentile latency per operation in milliseconds */
+    Map<String, Double> getLatencyP99();
+
+    /** @return max latency per operation in milliseconds */
+    Map<String, Double> getLatencyMax();
+
+    /** @return bytes downloaded */
+    long getBytesIn();
+
+    /** @return bytes uploaded */
+    long getBytesOut();
+
+    /** @return lookups and listings answered from memory */
+    long getCacheHits();
+
+    /** @return lookups and listings which needed a request */
+    long getCacheMisses();
+
+    /** @return folder index, block cache and scheduler values */
+    Map<String, Long> getGauges();
+
+    /** clears counters and latencies, gauges are kept */
+    void reset();
+}
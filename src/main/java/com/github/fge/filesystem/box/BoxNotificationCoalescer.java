@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.io.Closeable;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import com.github.fge.filesystem.box.BoxWatchService.Change;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+
+
+/**
+ * BoxNotificationCoalescer.
+ * <p>
+ * buffers changes for {@code window} milliseconds after the first one arrives,
+ * then hands them over at once. changes of the same item are merged into the last one.
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+final class BoxNotificationCoalescer implements Closeable {
+
+    private static final Logger logger = System.getLogger(BoxNotificationCoalescer.class.getName());
+
+    private final long window;
+
+    private final Consumer<Collection<Change>> flusher;
+
+    /** item id, change */
+    private Map<String, Change> pending = new LinkedHashMap<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "vavi-nio-file-box-notification");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    BoxNotificationCoalescer(long window, Consumer<Collection<Change>> flusher) {
+        this.window = window;
+        this.flusher = flusher;
+    }
+
+    synchronized void add(Change change) {
+        if (pending.isEmpty()) {
+            scheduler.schedule(this::flush, window, TimeUnit.MILLISECONDS);
+        }
+        pending.merge(change.id(), change, BoxNotificationCoalescer::merge);
+    }
+
+    /** the later wins, a known parent is kept unless deleted */
+    static Change merge(Change earlier, Change later) {
+        if (later.parentId() == null && later.kind() != ENTRY_DELETE) {
+            return new Change(later.id(), later.type() != null ? later.type() : earlier.type(), earlier.parentId(),
+                    later.name() != null ? later.name() : earlier.name(), later.kind());
+        }
+        return later;
+    }
+
+    private void flush() {
+        Collection<Change> changes;
+        synchronized (this) {
+            changes = new ArrayList<>(pending.values());
+            pending = new LinkedHashMap<>();
+        }
+        if (!changes.isEmpty()) {
+logger.log(Level.DEBUG, "notifications: " + changes.size());
+            try {
+                flusher.accept(changes);
+            } catch (RuntimeException e) {
+                logger.log(Level.ERROR, e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * pending changes are dropped, not applied by the closing thread.
+     * they are in the event stream after the position of a snapshot, so replayed at the next mount.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        synchronized (this) {
+            if (!pending.isEmpty()) {
+logger.log(Level.DEBUG, "notifications dropped: " + pending.size());
+            }
+            pending = new LinkedHashMap<>();
+        }
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import com.box.sdkgen.schemas.item.Item;
+
+
+/**
+ * BoxPathTrie.
+ * <p>
+ * resolved paths as a trie of path segments, each node holds the box item (id) of the segment.
+ * because a descendant is keyed by its parent node instead of its full path,
+ * moving or renaming a folder re-keys the whole subtree by relinking one node.
+ * nodes are also indexed by item id, so a path of an id is found without scanning.
+ * children of a folder are resolved from its {@link BoxFolderIndex} listing, so they are
+ * dropped by {@link #removeChildren(String)} when the folder is evicted from the index,
+ * that bounds the trie by the index.
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+final class BoxPathTrie {
+
+    /** a path segment */
+    private static final class Node {
+        String name;
+        Node parent;
+        Item item;
+        /** lazy */
+        Map<String, Node> children;
+
+        Node(String name, Node parent, Item item) {
+            this.name = name;
+            this.parent = parent;
+            this.item = item;
+        }
+
+        Node child(String name) {
+            return children != null ? children.get(name) : null;
+        }
+
+        void link(Node child) {
+            if (children == null) {
+                children = new HashMap<>();
+            }
+            child.parent = this;
+            children.put(child.name, child);
+        }
+
+        void unlink() {
+            if (parent != null && parent.children != null) {
+                parent.children.remove(name);
+            }
+            parent = null;
+        }
+    }
+
+    private final Node root;
+
+    /** item id to node */
+    private final Map<String, Node> ids = new HashMap<>();
+
+    /** of the file system, known at the first access */
+    private Path rootPath;
+
+    BoxPathTrie(Item root) {
+        this.root = new Node("", null, root);
+        ids.put(root.getId(), this.root);
+    }
+
+    /** @return number of resolved items */
+    synchronized int size() {
+        return ids.size();
+    }
+
+    /** @return null if the node does not exist */
+    private Node find(Path path) {
+        path = path.toAbsolutePath();
+        if (rootPath == null) {
+            rootPath = path.getRoot();
+        }
+        Node node = root;
+        for (int i = 0; i < path.getNameCount() && node != null; i++) {
+            node = node.child(path.getName(i).toString());
+        }
+        return node;
+    }
+
+    /** @return null when not resolved yet */
+    synchronized Item get(Path path) {
+        Node node = find(path);
+        return node != null ? node.item : null;
+    }
+
+    /** @return null when the id is not resolved yet */
+    synchronized Path getPath(String id) {
+        Node node = ids.get(id);
+        if (node == null || rootPath == null) {
+            return null;
+        }
+        List<String> names = new ArrayList<>();
+        for (; node != root; node = node.parent) {
+            if (node == null) {
+                return null; // detached
+            }
+            names.add(node.name);
+        }
+        Path path = rootPath;
+        for (int i = names.size() - 1; i >= 0; i--) {
+            path = path.resolve(names.get(i));
+        }
+        return path;
+    }
+
+    /** visits all resolved paths, parents first */
+    synchronized void forEach(BiConsumer<Path, Item> action) {
+        if (rootPath != null) {
+            forEach(root, rootPath, action);
+        }
+    }
+
+    /** visits a path and its subtree, parents first */
+    synchronized void forEach(Path path, BiConsumer<Path, Item> action) {
+        Node node = find(path);
+        if (node != null) {
+            forEach(node, path.toAbsolutePath(), action);
+        }
+    }
+
+    private void forEach(Node node, Path path, BiConsumer<Path, Item> action) {
+        action.accept(path, node.item);
+        if (node.children != null) {
+            node.children.values().forEach(child -> forEach(child, path.resolve(child.name), action));
+        }
+    }
+
+    /** adds a node to the id index */
+    private void index(Node node) {
+        ids.put(node.item.getId(), node);
+    }
+
+    /** removes a subtree from the id index */
+    private void deindex(Node node) {
+        ids.remove(node.item.getId(), node);
+        if (node.children != null) {
+            node.children.values().forEach(this::deindex);
+        }
+    }
+
+    /**
+     * adds or updates a resolved path, ignored when the parent is not resolved.
+     * when the id of the path is changed, the old subtree is dropped.
+     */
+    synchronized void put(Path path, Item item) {
+        path = path.toAbsolutePath();
+        if (path.getNameCount() == 0) {
+            root.item = item;
+            index(root);
+            return;
+        }
+        Node parent = find(path.getParent() != null ? path.getParent() : path.getRoot());
+        if (parent == null) {
+            return;
+        }
+        String name = path.getFileName().toString();
+        Node node = parent.child(name);
+        if (node != null && node.item.getId().equals(item.getId())) {
+            node.item = item;
+        } else {
+            if (node != null) {
+                deindex(node);
+            }
+            node = new Node(name, parent, item);
+            parent.link(node);
+        }
+        index(node);
+    }
+
+    /**
+     * updates the children of a resolved folder by a complete listing,
+     * subtrees of children which still exist with the same id are kept.
+     */
+    synchronized void putChildren(Path dir, List<Item> items) {
+        Node parent = find(dir);
+        if (parent == null) {
+            return;
+        }
+        Map<String, Node> old = parent.children;
+        parent.children = null;
+        for (Item item : items) {
+            Node node = old != null ? old.remove(item.getName()) : null;
+            if (node != null && node.item.getId().equals(item.getId())) {
+                node.item = item;
+            } else {
+                if (node != null) {
+                    deindex(node);
+                }
+                node = new Node(item.getName(), parent, item);
+            }
+            parent.link(node);
+            index(node);
+        }
+        if (old != null) {
+            old.values().forEach(this::deindex);
+        }
+    }
+
+    /** drops a path and its subtree */
+    synchronized void remove(Path path) {
+        Node node = find(path);
+        if (node != null && node != root) {
+            node.unlink();
+            deindex(node);
+        }
+    }
+
+    /**
+     * drops a path and its subtree.
+     * @return dropped paths and items, parents first
+     */
+    synchronized Map<Path, Item> removeSubtree(Path path) {
+        Map<Path, Item> removed = new LinkedHashMap<>();
+        Node node = find(path);
+        if (node != null && node != root) {
+            forEach(node, path.toAbsolutePath(), removed::put);
+            node.unlink();
+            deindex(node);
+        }
+        return removed;
+    }
+
+    /** drops the children of a folder and their subtrees, the folder itself is kept */
+    synchronized void removeChildren(String folderId) {
+        Node node = ids.get(folderId);
+        if (node != null && node.children != null) {
+            node.children.values().forEach(child -> {
+                child.parent = null;
+                deindex(child);
+            });
+            node.children = null;
+        }
+    }
+
+    /**
+     * re-keys a path and its subtree to the new path.
+     * when the target parent is not resolved, the subtree is dropped.
+     */
+    synchronized void move(Path source, Path target, Item item) {
+        target = target.toAbsolutePath();
+        Node node = find(source);
+        if (node == null || node == root) {
+            put(target, item);
+            return;
+        }
+        node.unlink();
+        Node parent = find(target.getParent() != null ? target.getParent() : target.getRoot());
+        if (parent == null) {
+            deindex(node);
+            return;
+        }
+        String name = target.getFileName().toString();
+        Node replaced = parent.child(name);
+        if (replaced != null) {
+            deindex(replaced);
+        }
+        ids.remove(node.item.getId(), node);
+        node.name = name;
+        node.item = item;
+        parent.link(node);
+        index(node);
+    }
+}
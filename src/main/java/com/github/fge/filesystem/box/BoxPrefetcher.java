@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * BoxPrefetcher.
+ * <p>
+ * lists a subtree breadth-first, folders of the same depth are listed in parallel
+ * by a bounded pool. a folder which fails to be listed is skipped with its subtree.
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+final class BoxPrefetcher {
+
+    private static final Logger logger = System.getLogger(BoxPrefetcher.class.getName());
+
+    /** lists a folder and caches it */
+    @FunctionalInterface
+    interface Lister {
+        /** @return child folders */
+        List<Path> list(Path dir) throws IOException;
+    }
+
+    static final int DEFAULT_CONCURRENCY = 8;
+
+    private final Lister lister;
+
+    private final ExecutorService executor;
+
+    /** folders listed or being listed */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final AtomicLong folders = new AtomicLong();
+
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+    private BoxPrefetcher(Lister lister, int concurrency) {
+        this.lister = lister;
+        this.executor = Executors.newFixedThreadPool(Math.max(1, concurrency), r -> {
+            Thread thread = new Thread(r, "vavi-nio-file-box-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** @return completed when the whole subtree is listed, cancelling it stops the prefetch */
+    static CompletableFuture<Void> prefetch(Path dir, Lister lister, int concurrency) {
+        BoxPrefetcher prefetcher = new BoxPrefetcher(lister, concurrency);
+        long t = System.currentTimeMillis();
+        prefetcher.done.whenComplete((v, e) -> {
+            prefetcher.executor.shutdownNow();
+logger.log(Level.DEBUG, "prefetch: " + dir + ", folders: " + prefetcher.folders.get() + ", " + (System.currentTimeMillis() - t) + " ms");
+        });
+        prefetcher.submit(dir);
+        return prefetcher.done;
+    }
+
+    /** the pool runs tasks in submitted order, so the tree is listed breadth-first */
+    private void submit(Path dir) {
+        pending.incrementAndGet();
+        executor.execute(() -> {
+            try {
+                if (done.isDone()) {
+                    return;
+                }
+                for (Path child : lister.list(dir)) {
+                    submit(child);
+                }
+                folders.incrementAndGet();
+            } catch (IOException | RuntimeException e) {
+                logger.log(Level.WARNING, "prefetch: " + dir + ": " + e.getMessage());
+            } finally {
+                if (pending.decrementAndGet() == 0) {
+                    done.complete(null);
+                }
+            }
+        });
+    }
+}
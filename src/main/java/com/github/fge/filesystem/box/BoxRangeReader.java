@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.io.IOException;
+
+
+/**
+ * BoxRangeReader.
+ * <p>
+ * reads a part of a file's content, typically by an http range request.
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+@FunctionalInterface
+interface BoxRangeReader {
+
+    /**
+     * @param offset start position
+     * @param length bytes to read, must not exceed the end of the content
+     * @return exactly {@code length} bytes
+     */
+    byte[] read(long offset, int length) throws IOException;
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+
+/**
+ * BoxRangedInputStream.
+ * <p>
+ * reads a content as consecutive chunks, up to {@code concurrency} chunks are
+ * fetched ahead in parallel and handed out in order.
+ * at most {@code (concurrency + 1) * chunkSize} bytes, the current chunk and the ones
+ * ahead, are held in memory. {@code size} must be of the version the reader is pinned to.
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+final class BoxRangedInputStream extends InputStream {
+
+    private final BoxRangeReader reader;
+
+    private final long size;
+
+    private final int chunkSize;
+
+    private final int concurrency;
+
+    private final ExecutorService executor;
+
+    /** in flight, in order */
+    private final Deque<Future<byte[]>> chunks = new ArrayDeque<>();
+
+    /** offset of the next chunk to request */
+    private long next;
+
+    private byte[] current = new byte[0];
+
+    private int position;
+
+    private boolean closed;
+
+    BoxRangedInputStream(BoxRangeReader reader, long size, int chunkSize, int concurrency, ExecutorService executor) {
+        this.reader = reader;
+        this.size = size;
+        this.chunkSize = chunkSize;
+        this.concurrency = Math.max(1, concurrency);
+        this.executor = executor;
+    }
+
+    /** keeps {@code concurrency} chunks in flight */
+    private void fill() {
+        while (chunks.size() < concurrency && next < size) {
+            long offset = next;
+            int length = (int) Math.min(chunkSize, size - offset);
+            chunks.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return reader.read(offset, length);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor));
+            next += length;
+        }
+    }
+
+    /** @return false at eof */
+    private boolean advance() throws IOException {
+        if (closed) {
+            throw new IOException("closed");
+        }
+        while (position == current.length) {
+            fill();
+            Future<byte[]> chunk = chunks.poll();
+            if (chunk == null) {
+                return false;
+            }
+            try {
+                current = chunk.get();
+            } catch (InterruptedException e) {
+                throw (IOException) new InterruptedIOException("download interrupted").initCause(e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+                throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+            }
+            position = 0;
+            fill();
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return advance() ? current[position++] & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!advance()) {
+            return -1;
+        }
+        int l = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, l);
+        position += l;
+        return l;
+    }
+
+    @Override
+    public int available() {
+        return current.length - position;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        chunks.forEach(chunk -> chunk.cancel(true));
+        chunks.clear();
+        current = new byte[0];
+    }
+}
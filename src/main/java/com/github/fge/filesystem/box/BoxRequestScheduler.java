@@ -0,0 +1,397 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.box.sdkgen.box.errors.BoxAPIError;
+import com.box.sdkgen.client.BoxClient;
+import com.box.sdkgen.networking.fetchoptions.FetchOptions;
+import com.box.sdkgen.networking.fetchresponse.FetchResponse;
+import com.box.sdkgen.networking.network.NetworkSession;
+import com.box.sdkgen.networking.retries.RetryStrategy;
+import com.github.fge.filesystem.box.BoxEvents.ApiEvent;
+
+
+/**
+ * BoxRequestScheduler.
+ * <p>
+ * all api calls of a client go through one scheduler.
+ * <ul>
+ * <li>a token bucket limits the request rate</li>
+ * <li>the number of requests in flight is adjusted by aimd, halved on 429 or 503
+ * and increased by one per a window of successes. throttles of requests started
+ * before the last cut do not cut again, so a window is halved once</li>
+ * <li>a waiting request of a higher priority is started first</li>
+ * <li>{@code Retry-After} pauses all requests, not only the throttled one</li>
+ * <li>each attempt is recorded as metrics and a flight recorder event</li>
+ * </ul>
+ * the client must be made by {@link #withRetryStrategy(BoxClient)}, otherwise the sdk retries
+ * 429 and 503 by itself and this never sees them.
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ * @see "https://developer.box.com/guides/api-calls/permissions-and-errors/rate-limits/"
+ */
+final class BoxRequestScheduler {
+
+    private static final Logger logger = System.getLogger(BoxRequestScheduler.class.getName());
+
+    /** the order requests are started in */
+    enum Priority {
+        /** listing, stat, rename and so on */
+        METADATA,
+        /** uploads and downloads */
+        CONTENT
+    }
+
+    /** an api call */
+    @FunctionalInterface
+    interface Request<T> {
+        T call() throws IOException;
+    }
+
+    /** 0, unlimited */
+    static final double DEFAULT_RATE = 0;
+
+    static final int DEFAULT_CONCURRENCY = 16;
+
+    private static final int MAX_RETRIES = 5;
+
+    /** when no Retry-After is given */
+    private static final long DEFAULT_BACKOFF = 1000;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition changed = lock.newCondition();
+
+    /** requests per second, 0 means unlimited */
+    private final double rate;
+
+    private final double burst;
+
+    private double tokens;
+
+    private long refilled = System.nanoTime();
+
+    private final int maxConcurrency;
+
+    /** aimd */
+    private double limit;
+
+    /** times the limit was cut, requests are tagged by this when started */
+    private long cuts;
+
+    private int inFlight;
+
+    /** nano time, all requests wait until this */
+    private long pausedUntil;
+
+    private final PriorityQueue<Ticket> waiting = new PriorityQueue<>(Comparator.comparing(Ticket::priority).thenComparingLong(Ticket::sequence));
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final AtomicLong throttledCount = new AtomicLong();
+
+    private record Ticket(Priority priority, long sequence) {}
+
+    private final BoxMetrics metrics;
+
+    /**
+     * @param rate requests per second, 0 means unlimited
+     * @param maxConcurrency the upper bound of requests in flight
+     * @param metrics records each round trip
+     */
+    BoxRequestScheduler(double rate, int maxConcurrency, BoxMetrics metrics) {
+        this.metrics = metrics;
+        this.rate = Math.max(0, rate);
+        this.burst = Math.max(1, this.rate * 2);
+        this.tokens = burst;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.limit = this.maxConcurrency;
+    }
+
+    /**
+     * calls an idempotent request, retried when throttled
+     * @param operation the api name for metrics
+     */
+    <T> T call(Priority priority, String operation, Request<T> request) throws IOException {
+        return call(priority, operation, null, null, request);
+    }
+
+    /**
+     * calls an idempotent request, retried when throttled
+     * @param operation the api name for metrics
+     * @param itemId for events, nullable
+     * @param path for events, nullable
+     */
+    <T> T call(Priority priority, String operation, String itemId, Path path, Request<T> request) throws IOException {
+        for (int retry = 0; ; retry++) {
+            long epoch = acquire(priority);
+            boolean throttled = false;
+            int status = -1;
+            ApiEvent event = new ApiEvent();
+            event.begin();
+            long t = System.nanoTime();
+            try {
+                T result = request.call();
+                status = 0;
+                return result;
+            } catch (BoxAPIError e) {
+                status = getStatus(e);
+                throttled = onError(e, retry);
+                if (!throttled || retry >= MAX_RETRIES) {
+                    throw e;
+                }
+                metrics.retried(operation);
+logger.log(Level.DEBUG, "throttled: " + operation + ", retry: " + retry + ", limit: " + (int) limit);
+            } finally {
+                metrics.record(operation, System.nanoTime() - t, status != 0);
+                commit(event, operation, itemId, path, status, retry);
+                release(throttled, epoch);
+            }
+        }
+    }
+
+    /**
+     * calls a request which consumes a stream, not retried
+     * @param operation the api name for metrics
+     */
+    <T> T callOnce(Priority priority, String operation, Request<T> request) throws IOException {
+        return callOnce(priority, operation, null, null, request);
+    }
+
+    /**
+     * calls a request which consumes a stream, not retried
+     * @param operation the api name for metrics
+     * @param itemId for events, nullable
+     * @param path for events, nullable
+     */
+    <T> T callOnce(Priority priority, String operation, String itemId, Path path, Request<T> request) throws IOException {
+        long epoch = acquire(priority);
+        boolean throttled = false;
+        int status = -1;
+        ApiEvent event = new ApiEvent();
+        event.begin();
+        long t = System.nanoTime();
+        try {
+            T result = request.call();
+            status = 0;
+            return result;
+        } catch (BoxAPIError e) {
+            status = getStatus(e);
+            throttled = onError(e, 0);
+            throw e;
+        } finally {
+            metrics.record(operation, System.nanoTime() - t, status != 0);
+            commit(event, operation, itemId, path, status, 0);
+            release(throttled, epoch);
+        }
+    }
+
+    /** fields are filled only when recorded */
+    private static void commit(ApiEvent event, String operation, String itemId, Path path, int errorStatus, int retry) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.itemId = itemId;
+            event.path = path != null ? path.toString() : null;
+            event.errorStatus = errorStatus;
+            event.retry = retry;
+            event.commit();
+        }
+    }
+
+    /** @return true when throttled, all requests are paused then */
+    private boolean onError(BoxAPIError e, int retry) {
+        int status = getStatus(e);
+        if (status != 429 && status != 503) {
+            return false;
+        }
+        throttledCount.incrementAndGet();
+        long retryAfter = getRetryAfter(e);
+        long pause = retryAfter >= 0 ? retryAfter : DEFAULT_BACKOFF << Math.min(retry, 5);
+        lock.lock();
+        try {
+            pausedUntil = Math.max(pausedUntil, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(pause));
+        } finally {
+            lock.unlock();
+        }
+        return true;
+    }
+
+    private static int getStatus(BoxAPIError e) {
+        return e.getResponseInfo() != null ? e.getResponseInfo().getStatusCode() : -1;
+    }
+
+    /** @return millis, -1 if not given */
+    private static long getRetryAfter(BoxAPIError e) {
+        if (e.getResponseInfo() == null || e.getResponseInfo().getHeaders() == null) {
+            return -1;
+        }
+        for (Map.Entry<String, String> header : e.getResponseInfo().getHeaders().entrySet()) {
+            if (header.getKey().equalsIgnoreCase("retry-after")) {
+                try {
+                    return (long) (Double.parseDouble(header.getValue().trim()) * 1000);
+                } catch (NumberFormatException f) {
+                    return -1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /** @return the number of cuts when the request is started */
+    private long acquire(Priority priority) throws IOException {
+        Ticket ticket = new Ticket(priority, sequence.getAndIncrement());
+        lock.lock();
+        try {
+            waiting.add(ticket);
+            while (true) {
+                long now = System.nanoTime();
+                long wait;
+                if (waiting.peek() != ticket || inFlight >= (int) limit) {
+                    wait = -1;
+                } else if (now < pausedUntil) {
+                    wait = pausedUntil - now;
+                } else if (!takeToken(now)) {
+                    wait = (long) ((1 - tokens) / rate * 1e9);
+                } else {
+                    waiting.poll();
+                    inFlight++;
+                    changed.signalAll();
+                    return cuts;
+                }
+                if (wait < 0) {
+                    changed.await();
+                } else {
+                    changed.awaitNanos(Math.max(wait, 1));
+                }
+            }
+        } catch (InterruptedException e) {
+            waiting.remove(ticket);
+            changed.signalAll();
+            throw (IOException) new InterruptedIOException("request interrupted").initCause(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** guarded by the lock */
+    private boolean takeToken(long now) {
+        if (rate == 0) {
+            return true;
+        }
+        tokens = Math.min(burst, tokens + (now - refilled) / 1e9 * rate);
+        refilled = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /** @param epoch the number of cuts when the request was started */
+    private void release(boolean throttled, long epoch) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (throttled) {
+                if (epoch == cuts) {
+                    limit = Math.max(1, limit / 2);
+                    cuts++;
+                }
+            } else {
+                limit = Math.min(maxConcurrency, limit + 1 / limit);
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** leaves 429 and 503 to a scheduler, others are retried by the sdk as before */
+    static final class SchedulerRetryStrategy implements RetryStrategy {
+
+        private final RetryStrategy delegate;
+
+        SchedulerRetryStrategy(RetryStrategy delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean shouldRetry(FetchOptions fetchOptions, FetchResponse fetchResponse, int attemptNumber) {
+            if (fetchResponse != null && (fetchResponse.getStatus() == 429 || fetchResponse.getStatus() == 503)) {
+                return false;
+            }
+            return delegate.shouldRetry(fetchOptions, fetchResponse, attemptNumber);
+        }
+
+        @Override
+        public double retryAfter(FetchOptions fetchOptions, FetchResponse fetchResponse, int attemptNumber) {
+            return delegate.retryAfter(fetchOptions, fetchResponse, attemptNumber);
+        }
+    }
+
+    /** @return a copy of the client whose sdk retries leave throttling to a scheduler */
+    static BoxClient withRetryStrategy(BoxClient client) {
+        NetworkSession session = client.networkSession;
+        if (session.getRetryStrategy() instanceof SchedulerRetryStrategy) {
+            return client;
+        }
+        return new BoxClient.Builder(client.auth)
+                .networkSession(session.withRetryStrategy(new SchedulerRetryStrategy(session.getRetryStrategy())))
+                .build();
+    }
+
+    /** @return requests waiting to be started */
+    int getQueueDepth() {
+        lock.lock();
+        try {
+            return waiting.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return requests in flight */
+    int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return the current concurrency limit */
+    int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return how many times requests were throttled */
+    long getThrottledCount() {
+        return throttledCount.get();
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * BoxSeekableByteChannel.
+ * <p>
+ * a read only channel, each read is served by range requests aligned to {@code blockSize}.
+ * recently read blocks are kept in memory, so a seek costs one round trip
+ * instead of reading the content from the start.
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+final class BoxSeekableByteChannel implements SeekableByteChannel {
+
+    private static final Logger logger = System.getLogger(BoxSeekableByteChannel.class.getName());
+
+    private final BoxRangeReader reader;
+
+    private final long size;
+
+    private final int blockSize;
+
+    /** lru, block index to block */
+    private final Map<Long, byte[]> blocks;
+
+    private long position;
+
+    private boolean closed;
+
+    BoxSeekableByteChannel(BoxRangeReader reader, long size, int blockSize, int maxBlocks) {
+        this.reader = reader;
+        this.size = size;
+        this.blockSize = blockSize;
+        this.blocks = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+                return size() > maxBlocks;
+            }
+        };
+    }
+
+    /** @return the block which contains {@code index * blockSize} */
+    private byte[] block(long index) throws IOException {
+        byte[] block = blocks.get(index);
+        if (block == null) {
+            long offset = index * blockSize;
+            int length = (int) Math.min(blockSize, size - offset);
+logger.log(Level.TRACE, "block: " + index + ", offset: " + offset + ", length: " + length);
+            block = reader.read(offset, length);
+            blocks.put(index, block);
+        }
+        return block;
+    }
+
+    @Override
+    public synchronized int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        if (position >= size) {
+            return -1;
+        }
+        int read = 0;
+        while (dst.hasRemaining() && position < size) {
+            byte[] block = block(position / blockSize);
+            int offset = (int) (position % blockSize);
+            int length = Math.min(dst.remaining(), block.length - offset);
+            dst.put(block, offset, length);
+            position += length;
+            read += length;
+        }
+        return read;
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public synchronized long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public synchronized SeekableByteChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("negative position: " + newPosition);
+        }
+        this.position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return size;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public synchronized boolean isOpen() {
+        return !closed;
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        blocks.clear();
+    }
+
+    private synchronized void ensureOpen() throws ClosedChannelException {
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+    }
+}
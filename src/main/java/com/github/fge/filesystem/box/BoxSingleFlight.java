@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import com.github.fge.filesystem.box.BoxRequestScheduler.Request;
+
+
+/**
+ * BoxSingleFlight.
+ * <p>
+ * concurrent calls for the same key share one request in flight and its result.
+ * a call after the request is finished makes a new request, nothing is cached here.
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+final class BoxSingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+
+    /** @return the result of the request, or of the one already in flight for the key */
+    V execute(K key, Request<V> request) throws IOException {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> leader = flights.putIfAbsent(key, flight);
+        if (leader != null) {
+            return join(leader);
+        }
+        try {
+            V value = request.call();
+            flight.complete(value);
+            return value;
+        } catch (IOException | RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    private static <V> V join(CompletableFuture<V> leader) throws IOException {
+        try {
+            return leader.get();
+        } catch (InterruptedException e) {
+            throw (IOException) new InterruptedIOException("interrupted while waiting").initCause(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException f) {
+                throw f;
+            } else if (e.getCause() instanceof RuntimeException f) {
+                throw f;
+            } else if (e.getCause() instanceof Error f) {
+                throw f;
+            } else {
+                throw new IOException(e.getCause());
+            }
+        }
+    }
+
+    /** @return keys in flight */
+    int size() {
+        return flights.size();
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.box.sdkgen.schemas.item.Item;
+
+
+/**
+ * BoxStreamingUploadOutputStream.
+ * <p>
+ * the upload starts with the first write, written bytes are handed to the
+ * request body through a bounded queue of chunks while the caller is still writing.
+ * a writer blocks when the queue is full, so at most {@code chunks * chunkSize}
+ * bytes are buffered here.
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+abstract class BoxStreamingUploadOutputStream extends OutputStream {
+
+    private static final byte[] EOF = new byte[0];
+
+    private final BlockingQueue<byte[]> queue;
+
+    private final int chunkSize;
+
+    private byte[] chunk;
+
+    private int count;
+
+    private final ExecutorService executor;
+
+    private Future<Item> upload;
+
+    private boolean closed;
+
+    protected BoxStreamingUploadOutputStream(ExecutorService executor, int chunkSize, int chunks) {
+        this.chunkSize = chunkSize;
+        this.queue = new ArrayBlockingQueue<>(chunks);
+        this.chunk = new byte[chunkSize];
+        this.executor = executor;
+    }
+
+    private void start() {
+        if (upload == null) {
+            upload = executor.submit(() -> {
+                try (InputStream is = new QueueInputStream()) {
+                    return upload(is);
+                }
+            });
+        }
+    }
+
+    /** runs in another thread, reads the content from {@code is} until eof */
+    protected abstract Item upload(InputStream is) throws IOException;
+
+    /** called when the upload is completed */
+    protected abstract void onUploaded(Item entry) throws IOException;
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("closed");
+        }
+        start();
+        while (len > 0) {
+            int l = Math.min(len, chunkSize - count);
+            System.arraycopy(b, off, chunk, count, l);
+            count += l;
+            off += l;
+            len -= l;
+            if (count == chunkSize) {
+                put(chunk);
+                chunk = new byte[chunkSize];
+                count = 0;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        start();
+        if (count > 0) {
+            byte[] last = new byte[count];
+            System.arraycopy(chunk, 0, last, 0, count);
+            put(last);
+        }
+        chunk = null;
+        put(EOF);
+        onUploaded(result());
+    }
+
+    /** blocks while the queue is full, fails when the upload is already finished */
+    private void put(byte[] bytes) throws IOException {
+        try {
+            while (!queue.offer(bytes, 100, TimeUnit.MILLISECONDS)) {
+                if (upload.isDone()) {
+                    result();
+                    throw new IOException("upload finished before all bytes were sent");
+                }
+            }
+        } catch (InterruptedException e) {
+            upload.cancel(true);
+            throw (IOException) new InterruptedIOException("upload interrupted").initCause(e);
+        }
+    }
+
+    private Item result() throws IOException {
+        try {
+            return upload.get();
+        } catch (InterruptedException e) {
+            upload.cancel(true);
+            throw (IOException) new InterruptedIOException("upload interrupted").initCause(e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+    /** the reading side of the queue */
+    private final class QueueInputStream extends InputStream {
+        private byte[] current = new byte[0];
+        private int position;
+        private boolean eof;
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (position == current.length) {
+                if (eof) {
+                    return -1;
+                }
+                try {
+                    current = queue.take();
+                } catch (InterruptedException e) {
+                    throw (IOException) new InterruptedIOException("upload interrupted").initCause(e);
+                }
+                position = 0;
+                if (current == EOF) {
+                    eof = true;
+                    return -1;
+                }
+            }
+            int l = Math.min(len, current.length - position);
+            System.arraycopy(current, position, b, off, l);
+            position += l;
+            return l;
+        }
+    }
+}
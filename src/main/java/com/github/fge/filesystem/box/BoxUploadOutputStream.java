@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+
+/**
+ * BoxUploadOutputStream.
+ * <p>
+ * buffers written bytes in memory up to {@code memoryLimit}, beyond that the content
+ * is spooled to a temporary file. the sha1 digest of the content is calculated while writing.
+ * {@link #onClosed()} is called when the stream is closed, the spool file is deleted after that.
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+abstract class BoxUploadOutputStream extends OutputStream {
+
+    private final long memoryLimit;
+
+    private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+
+    /** after closed */
+    private byte[] bytes;
+
+    private Path spool;
+
+    private OutputStream spoolOut;
+
+    private FileChannel spoolChannel;
+
+    private long size;
+
+    private final MessageDigest sha1;
+
+    private byte[] digest;
+
+    private boolean closed;
+
+    protected BoxUploadOutputStream(long memoryLimit) {
+        this.memoryLimit = memoryLimit;
+        try {
+            this.sha1 = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("closed");
+        }
+        if (memory != null && memory.size() + (long) len > memoryLimit) {
+            spool = Files.createTempFile("vavi-nio-file-box", ".upload");
+            spoolOut = new BufferedOutputStream(Files.newOutputStream(spool), 64 * 1024);
+            memory.writeTo(spoolOut);
+            memory = null;
+        }
+        if (memory != null) {
+            memory.write(b, off, len);
+        } else {
+            spoolOut.write(b, off, len);
+        }
+        sha1.update(b, off, len);
+        size += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (spoolOut != null) {
+            spoolOut.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        digest = sha1.digest();
+        try {
+            if (spoolOut != null) {
+                spoolOut.close();
+                spoolChannel = FileChannel.open(spool, StandardOpenOption.READ);
+            } else {
+                bytes = memory.toByteArray();
+                memory = null;
+            }
+            onClosed();
+        } finally {
+            bytes = null;
+            if (spool != null) {
+                if (spoolChannel != null) {
+                    spoolChannel.close();
+                }
+                Files.deleteIfExists(spool);
+            }
+        }
+    }
+
+    /** called once when closed, the content is available only while this method runs */
+    protected abstract void onClosed() throws IOException;
+
+    /** @return total bytes written */
+    protected long size() {
+        return size;
+    }
+
+    /** @return true if the content exceeds the memory limit */
+    protected boolean isSpooled() {
+        return spool != null;
+    }
+
+    /** @return sha1 of the whole content, available after closed */
+    protected byte[] sha1() {
+        return digest;
+    }
+
+    /** @return the whole content, available in {@link #onClosed()} */
+    protected InputStream getInputStream() throws IOException {
+        return spool != null ? Files.newInputStream(spool) : new ByteArrayInputStream(bytes);
+    }
+
+    /**
+     * positional read, safe for concurrent use.
+     * available in {@link #onClosed()}
+     */
+    protected byte[] read(long offset, int length) throws IOException {
+        if (spool == null) {
+            return Arrays.copyOfRange(bytes, (int) offset, (int) offset + length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            int r = spoolChannel.read(buffer, offset + buffer.position());
+            if (r < 0) {
+                throw new IOException("unexpected eof at " + (offset + buffer.position()));
+            }
+        }
+        return buffer.array();
+    }
+}
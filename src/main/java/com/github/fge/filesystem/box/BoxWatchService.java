@@ -9,17 +9,40 @@ package com.github.fge.filesystem.box;
 import java.io.IOException;
 import java.lang.System.Logger;
 import java.lang.System.Logger.Level;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchEvent.Kind;
+import java.nio.file.WatchEvent.Modifier;
+import java.nio.file.WatchKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import com.box.sdkgen.client.BoxClient;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import vavi.nio.file.watch.webhook.WebHookBaseWatchService;
 
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
 
 /**
  * BoxWatchService.
  * <p>
  * system properties
  * <ul>
- * <li> vavi.nio.file.watch.webhook.NotificationProvider.box
+ * <li> vavi.nio.file.watch.webhook.NotificationProvider.box ... ".box.webhook.websocket" (default)
+ *      or ".box.webhook.longpoll"
  * </ul>
  * </p>
  *
@@ -41,16 +64,290 @@ public class BoxWatchService extends WebHookBaseWatchService<String> {
     public BoxWatchService(BoxClient client) throws IOException {
         this.client = client;
 
-        setupNotification(this, WEBHOOK_NOTIFICATION_PROVIDER);
+        setupNotification(this, WEBHOOK_NOTIFICATION_PROVIDER, client);
+    }
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    /** event types of the event stream and triggers of webhooks */
+    private static final Map<String, Kind<?>> kinds = Map.ofEntries(
+            Map.entry("ITEM_CREATE", ENTRY_CREATE),
+            Map.entry("ITEM_UPLOAD", ENTRY_CREATE),
+            Map.entry("ITEM_COPY", ENTRY_CREATE),
+            Map.entry("ITEM_UNDELETE_VIA_TRASH", ENTRY_CREATE),
+            Map.entry("ITEM_MODIFY", ENTRY_MODIFY),
+            Map.entry("ITEM_RENAME", ENTRY_MODIFY),
+            Map.entry("ITEM_MOVE", ENTRY_MODIFY),
+            Map.entry("ITEM_TRASH", ENTRY_DELETE),
+            Map.entry("FILE.UPLOADED", ENTRY_CREATE),
+            Map.entry("FILE.COPIED", ENTRY_CREATE),
+            Map.entry("FILE.RESTORED", ENTRY_CREATE),
+            Map.entry("FOLDER.CREATED", ENTRY_CREATE),
+            Map.entry("FOLDER.COPIED", ENTRY_CREATE),
+            Map.entry("FOLDER.RESTORED", ENTRY_CREATE),
+            Map.entry("FILE.RENAMED", ENTRY_MODIFY),
+            Map.entry("FILE.MOVED", ENTRY_MODIFY),
+            Map.entry("FOLDER.RENAMED", ENTRY_MODIFY),
+            Map.entry("FOLDER.MOVED", ENTRY_MODIFY),
+            Map.entry("FILE.TRASHED", ENTRY_DELETE),
+            Map.entry("FILE.DELETED", ENTRY_DELETE),
+            Map.entry("FOLDER.TRASHED", ENTRY_DELETE),
+            Map.entry("FOLDER.DELETED", ENTRY_DELETE)
+    );
+
+    /**
+     * a change of an item, the parent is the folder where the item is now, null if unknown.
+     * the type is "file" or "folder", the type and the name are null if unknown.
+     */
+    record Change(String id, String type, String parentId, String name, Kind<?> kind) {}
+
+    /** preferred to the notification listener when set */
+    private Consumer<Change> changeListener;
+
+    /** for the driver, receives the parent of an item too */
+    void setChangeListener(Consumer<Change> changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    /**
+     * @param json an event of the event stream or a webhook payload
+     * @return null if the event is not a change of an item
+     */
+    static Change toChange(JsonNode json) {
+        String type = json.has("event_type") ? json.get("event_type").asText() : json.path("trigger").asText();
+        Kind<?> kind = kinds.get(type);
+        JsonNode source = json.path("source");
+        if (kind == null || !source.has("id")) {
+logger.log(Level.TRACE, ">> notification: ignored: " + type);
+            return null;
+        }
+        // an upload of a new version has a sequence id after the first
+        if (kind == ENTRY_CREATE && (type.equals("ITEM_UPLOAD") || type.equals("FILE.UPLOADED")) && source.path("sequence_id").asInt(0) > 0) {
+            kind = ENTRY_MODIFY;
+        }
+        String parentId = source.path("parent").has("id") ? source.get("parent").get("id").asText() : null;
+        String name = source.has("name") ? source.get("name").asText() : null;
+        String itemType = source.has("type") ? source.get("type").asText() : null;
+        return new Change(source.get("id").asText(), itemType, parentId, name, kind);
     }
 
+    /** an event of the event stream or a webhook payload */
     @Override
     protected void onNotifyMessage(String notification) throws IOException {
-logger.log(Level.TRACE, ">> notification: done");
+        Change change = toChange(mapper.readTree(notification));
+        if (change == null) {
+            return;
+        }
+logger.log(Level.TRACE, ">> notification: " + change);
+        if (changeListener != null) {
+            changeListener.accept(change);
+        } else if (listener != null) {
+            listener.accept(change.id(), change.kind());
+        }
+        signal(change);
+    }
+
+    // ---- watch keys
+
+    /** resolves a directory to be registered */
+    interface FolderResolver {
+        /** @return the folder id */
+        String getId(Path dir) throws IOException;
+
+        /** @return item id, name of the folder's children */
+        Map<String, String> getChildren(String folderId) throws IOException;
+    }
+
+    /** set by the driver, keys can not be registered without this */
+    private FolderResolver folderResolver;
+
+    void setFolderResolver(FolderResolver folderResolver) {
+        this.folderResolver = folderResolver;
+    }
+
+    /** an event of a key, the context is the name relative to the directory */
+    private record BoxWatchEvent(Kind<Path> kind, Path context) implements WatchEvent<Path> {
+        @Override
+        public int count() {
+            return 1;
+        }
+    }
+
+    /** a registered directory */
+    private final class BoxWatchKey implements WatchKey {
+        final Path dir;
+        final String folderId;
+        volatile Set<Kind<?>> kinds;
+        /** item id, name, the old name of a renamed or moved item is found here */
+        final Map<String, String> children = new ConcurrentHashMap<>();
+        /** guarded by this */
+        private List<WatchEvent<?>> events = new ArrayList<>();
+        /** guarded by this, queued and not reset yet */
+        private boolean signalled;
+        private volatile boolean valid = true;
+
+        BoxWatchKey(Path dir, String folderId, Set<Kind<?>> kinds) {
+            this.dir = dir;
+            this.folderId = folderId;
+            this.kinds = kinds;
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized void signal(Kind<?> kind, String name) {
+            if (!valid || !kinds.contains(kind)) {
+                return;
+            }
+            events.add(new BoxWatchEvent((Kind<Path>) kind, dir.getFileSystem().getPath(name)));
+            if (!signalled) {
+                signalled = true;
+                signalledKeys.add(this);
+            }
+        }
+
+        @Override
+        public boolean isValid() {
+            return valid && !closed;
+        }
+
+        @Override
+        public synchronized List<WatchEvent<?>> pollEvents() {
+            List<WatchEvent<?>> result = events;
+            events = new ArrayList<>();
+            return result;
+        }
+
+        @Override
+        public synchronized boolean reset() {
+            if (!isValid()) {
+                return false;
+            }
+            if (signalled) {
+                if (events.isEmpty()) {
+                    signalled = false;
+                } else {
+                    signalledKeys.add(this);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void cancel() {
+            valid = false;
+            keys.remove(folderId, this);
+        }
+
+        @Override
+        public Path watchable() {
+            return dir;
+        }
+    }
+
+    /** folder id, key */
+    private final Map<String, BoxWatchKey> keys = new ConcurrentHashMap<>();
+
+    private final BlockingQueue<WatchKey> signalledKeys = new LinkedBlockingQueue<>();
+
+    /** wakes up take() on close */
+    private final WatchKey closeKey = new BoxWatchKey(null, null, Set.of());
+
+    private volatile boolean closed;
+
+    /**
+     * called by {@link Path#register(java.nio.file.WatchService, Kind[], Modifier...)}.
+     * registering a directory again replaces its kinds.
+     */
+    public WatchKey register(Path dir, Kind<?>[] events, Modifier... modifiers) throws IOException {
+        if (closed) {
+            throw new ClosedWatchServiceException();
+        }
+        if (folderResolver == null) {
+            throw new UnsupportedOperationException("not a watch service of a file system");
+        }
+        String folderId = folderResolver.getId(dir);
+        Set<Kind<?>> kinds = Set.copyOf(Arrays.asList(events));
+        BoxWatchKey registered = keys.get(folderId);
+        if (registered != null && registered.valid) {
+            registered.kinds = kinds;
+            return registered;
+        }
+        BoxWatchKey key = new BoxWatchKey(dir, folderId, kinds);
+        key.children.putAll(folderResolver.getChildren(folderId));
+        keys.put(folderId, key);
+        return key;
+    }
+
+    /**
+     * queues events to the keys of the folders the item was and is in.
+     * a renamed or moved item is a delete of the old name and a create of the new one.
+     */
+    private void signal(Change change) {
+        boolean left = false;
+        for (BoxWatchKey key : keys.values()) {
+            String name = key.children.get(change.id());
+            if (name != null && (change.kind() == ENTRY_DELETE || !key.folderId.equals(change.parentId()) || !name.equals(change.name()))) {
+                key.children.remove(change.id());
+                key.signal(ENTRY_DELETE, name);
+                left = true;
+            }
+        }
+        if (change.parentId() == null || change.name() == null) {
+            return;
+        }
+        BoxWatchKey key = keys.get(change.parentId());
+        if (key == null) {
+            return;
+        }
+        if (change.kind() == ENTRY_DELETE) {
+            if (!left) {
+                key.signal(ENTRY_DELETE, change.name());
+            }
+        } else {
+            String name = key.children.put(change.id(), change.name());
+            key.signal(name == null ? ENTRY_CREATE : change.kind(), change.name());
+        }
+    }
+
+    private WatchKey checkClosed(WatchKey key) {
+        if (key == closeKey || (key == null && closed)) {
+            signalledKeys.offer(closeKey); // for other waiters
+            throw new ClosedWatchServiceException();
+        }
+        return key;
+    }
+
+    @Override
+    public WatchKey poll() {
+        if (closed) {
+            throw new ClosedWatchServiceException();
+        }
+        return checkClosed(signalledKeys.poll());
+    }
+
+    @Override
+    public WatchKey poll(long timeout, TimeUnit unit) throws InterruptedException {
+        if (closed) {
+            throw new ClosedWatchServiceException();
+        }
+        return checkClosed(signalledKeys.poll(timeout, unit));
+    }
+
+    @Override
+    public WatchKey take() throws InterruptedException {
+        if (closed) {
+            throw new ClosedWatchServiceException();
+        }
+        return checkClosed(signalledKeys.take());
     }
 
     @Override
     public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            keys.values().forEach(key -> key.valid = false);
+            keys.clear();
+            signalledKeys.offer(closeKey);
+        }
         if (isOpen()) {
             super.close();
         }
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box.webhook.longpoll;
+
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import com.box.sdkgen.client.BoxClient;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.filesystem.box.BoxEventStream;
+import vavi.nio.file.watch.webhook.Notification;
+
+
+/**
+ * BoxLongPollNotification.
+ * <p>
+ * follows box's event stream by long polling, no public endpoint is needed.
+ * each event json is passed to the callback as a string.
+ * the stream position is saved to a file, so events while stopped are delivered at the next start.
+ * notifications of the same position file, i.e. of the same user, share one poller,
+ * it polls by the client of the first one and stops when the last one is closed.
+ * a long poll is reconnected at the server's "retry_timeout" without backoff.
+ * </p>
+ * system properties
+ * <ul>
+ * <li> vavi.nio.file.box.webhook.longpoll.streamPosition ... file to save the stream position,
+ *      shared by all watch services of the jvm. default is "~/.vavifuse/box/stream_position.{user id}",
+ *      so mounts of different accounts do not overwrite each other's position
+ * </ul>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ * @see "https://developer.box.com/guides/events/user-events/polling/"
+ */
+public class BoxLongPollNotification implements Notification<String> {
+
+    private static final Logger logger = System.getLogger(BoxLongPollNotification.class.getName());
+
+    /** box may deliver the same event more than once */
+    private static final int RECENT_EVENTS = 1000;
+
+    /** position file, shared one */
+    private static final Map<Path, Poller> pollers = new HashMap<>();
+
+    private final Poller poller;
+
+    private final Consumer<String> callback;
+
+    /**
+     * @param args a {@link BoxClient} is required
+     */
+    public BoxLongPollNotification(Consumer<String> callback, Object... args) throws IOException {
+        this.callback = callback;
+        BoxClient client = Arrays.stream(args).filter(BoxClient.class::isInstance).map(BoxClient.class::cast).findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("no box client in args"));
+        Path positionFile = getPositionFile(client);
+        synchronized (pollers) {
+            Poller poller = pollers.get(positionFile);
+            if (poller == null) {
+logger.log(Level.DEBUG, "longpoll: position file: " + positionFile);
+                poller = new Poller(client, positionFile);
+                pollers.put(positionFile, poller);
+            }
+            poller.callbacks.add(callback);
+            this.poller = poller;
+        }
+    }
+
+    /** the property, or a file per user */
+    private static Path getPositionFile(BoxClient client) throws IOException {
+        String file = System.getProperty("vavi.nio.file.box.webhook.longpoll.streamPosition");
+        if (file != null) {
+            return Paths.get(file).toAbsolutePath();
+        }
+        try {
+            String userId = client.users.getUserMe().getId();
+            return Paths.get(System.getProperty("user.home"), ".vavifuse", "box", "stream_position." + userId);
+        } catch (RuntimeException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (pollers) {
+            if (poller.callbacks.remove(callback) && poller.callbacks.isEmpty()) {
+                pollers.remove(poller.positionFile);
+                poller.close();
+            }
+        }
+    }
+
+    /** polls for the callbacks of a position file */
+    private static final class Poller {
+
+        private final BoxEventStream stream;
+
+        private final Path positionFile;
+
+        private final List<Consumer<String>> callbacks = new CopyOnWriteArrayList<>();
+
+        private final Map<String, Boolean> recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > RECENT_EVENTS;
+            }
+        };
+
+        /** runs long poll requests, a timed out one is left behind */
+        private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "vavi-nio-file-box-longpoll-request");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        private final Thread thread;
+
+        private volatile boolean closed;
+
+        Poller(BoxClient client, Path positionFile) {
+            this.stream = new BoxEventStream(client);
+            this.positionFile = positionFile;
+
+            thread = new Thread(this::run, "vavi-nio-file-box-longpoll");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private void run() {
+            int failures = 0;
+            while (!closed) {
+                try {
+                    String position = loadPosition();
+                    if (position == null) {
+                        position = stream.now();
+                        savePosition(position);
+                    }
+                    JsonNode server = stream.getRealtimeServer();
+                    int maxRetries = server.has("max_retries") ? server.get("max_retries").asInt() : 10;
+                    for (int i = 0; i < maxRetries && !closed; i++) {
+                        String message = stream.longPoll(server, position, executor);
+                        if (message.equals("new_change")) {
+                            position = drain(position);
+                        } else if (!message.equals("reconnect")) {
+logger.log(Level.DEBUG, "longpoll: " + message);
+                            break;
+                        }
+                    }
+                    failures = 0;
+                } catch (Exception e) {
+                    if (closed) {
+                        break;
+                    }
+                    logger.log(Level.WARNING, "longpoll: " + e.getMessage(), e);
+                    try {
+                        Thread.sleep(1000L << Math.min(failures++, 6));
+                    } catch (InterruptedException f) {
+                        break;
+                    }
+                }
+            }
+logger.log(Level.DEBUG, "longpoll: stopped");
+        }
+
+        /** delivers all events after the position */
+        private String drain(String position) throws IOException {
+            String next = stream.read(position, event -> {
+                String eventId = event.has("event_id") ? event.get("event_id").asText() : null;
+                if (eventId != null && recent.put(eventId, Boolean.TRUE) != null) {
+                    return;
+                }
+logger.log(Level.TRACE, "longpoll: " + event);
+                String json = event.toString();
+                for (Consumer<String> callback : callbacks) {
+                    try {
+                        callback.accept(json);
+                    } catch (RuntimeException e) {
+                        logger.log(Level.WARNING, "longpoll: " + e.getMessage(), e);
+                    }
+                }
+            });
+            savePosition(next);
+            return next;
+        }
+
+        private String loadPosition() throws IOException {
+            return Files.exists(positionFile) ? Files.readString(positionFile, StandardCharsets.UTF_8).trim() : null;
+        }
+
+        /** atomically */
+        private void savePosition(String position) throws IOException {
+            Files.createDirectories(positionFile.toAbsolutePath().getParent());
+            Path temp = positionFile.resolveSibling(positionFile.getFileName() + ".tmp");
+            Files.writeString(temp, position, StandardCharsets.UTF_8);
+            Files.move(temp, positionFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        void close() {
+            closed = true;
+            thread.interrupt();
+            executor.shutdownNow();
+        }
+    }
+}
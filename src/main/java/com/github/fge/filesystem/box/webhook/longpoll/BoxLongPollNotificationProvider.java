@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box.webhook.longpoll;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import vavi.nio.file.watch.webhook.Notification;
+import vavi.nio.file.watch.webhook.NotificationProvider;
+
+
+/**
+ * BoxLongPollNotificationProvider.
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+public class BoxLongPollNotificationProvider implements NotificationProvider {
+
+    @Override
+    public <T> Notification<T> getNotification(Consumer<T> callback, Object... args) throws IOException {
+        return Notification.class.cast(new BoxLongPollNotification(Consumer.class.cast(callback), args));
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * BoxBenchmark. (fake box server)
+ * <p>
+ * the real provider against the in-process fake box api, no account is needed.
+ * <pre>
+ * mvn -P benchmark test
+ * mvn -P benchmark test -Djmh.args="BoxBenchmark.read -prof gc"
+ * </pre>
+ * "warm" benchmarks share one mounted file system, so metadata is answered from its caches
+ * after the first call. "cold" ones mount a new file system per invocation.
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BoxBenchmark {
+
+    static final int SMALL = 4 * 1024;
+
+    static final int LARGE = 32 * 1024 * 1024;
+
+    static final int SMALL_ITEMS = 100;
+
+    static final int LARGE_ITEMS = 100_000;
+
+    static final int TREE_FAN_OUT = 5;
+
+    static final int TREE_DEPTH = 3;
+
+    /** one fake server for all benchmarks of a fork */
+    @State(Scope.Benchmark)
+    public static class Server {
+
+        FakeBoxExtension box;
+
+        FakeBoxServer server;
+
+        byte[] small;
+
+        byte[] large;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            box = FakeBoxExtension.open();
+            server = box.getServer();
+            Random random = new Random(0);
+            small = new byte[SMALL];
+            random.nextBytes(small);
+            large = new byte[LARGE];
+            random.nextBytes(large);
+
+            String files = server.mkdir("0", "files");
+            server.mkfile(files, "small.bin", small);
+            server.mkfile(files, "large.bin", large);
+            server.mkfile(files, "rename.bin", small);
+
+            String smallFolder = server.mkdir("0", "small");
+            for (int i = 0; i < SMALL_ITEMS; i++) {
+                server.mkfile(smallFolder, String.format("file%03d.txt", i), new byte[0]);
+            }
+            String largeFolder = server.mkdir("0", "large");
+            for (int i = 0; i < LARGE_ITEMS; i++) {
+                server.mkfile(largeFolder, String.format("file%06d.txt", i), new byte[0]);
+            }
+            mkTree(server.mkdir("0", "tree"), TREE_DEPTH);
+        }
+
+        private void mkTree(String id, int depth) {
+            for (int i = 0; i < TREE_FAN_OUT; i++) {
+                server.mkfile(id, "file" + i + ".txt", new byte[0]);
+                if (depth > 0) {
+                    mkTree(server.mkdir(id, "dir" + i), depth - 1);
+                }
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void teardown() {
+            box.close();
+        }
+    }
+
+    /** mounted once */
+    @State(Scope.Benchmark)
+    public static class Warm {
+
+        FileSystem fs;
+
+        boolean renamed;
+
+        @Setup(Level.Trial)
+        public void setup(Server server) throws Exception {
+            fs = FakeBoxExtension.newFileSystem("warm", Map.of());
+        }
+
+        @TearDown(Level.Trial)
+        public void teardown() throws Exception {
+            fs.close();
+        }
+    }
+
+    /** mounted per invocation */
+    @State(Scope.Thread)
+    public static class Cold {
+
+        FileSystem fs;
+
+        @Setup(Level.Invocation)
+        public void setup(Server server) throws Exception {
+            fs = FakeBoxExtension.newFileSystem("cold", Map.of());
+        }
+
+        @TearDown(Level.Invocation)
+        public void teardown() throws Exception {
+            fs.close();
+        }
+    }
+
+    private static long count(Path dir) throws Exception {
+        long count = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path ignored : stream) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static long read(Path path, byte[] buffer) throws Exception {
+        long total = 0;
+        try (InputStream is = Files.newInputStream(path)) {
+            int r;
+            while ((r = is.read(buffer)) > 0) {
+                total += r;
+            }
+        }
+        return total;
+    }
+
+    private static void write(Path path, byte[] bytes) throws Exception {
+        try (OutputStream os = Files.newOutputStream(path)) {
+            os.write(bytes);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public BasicFileAttributes stat(Warm warm) throws Exception {
+        return Files.readAttributes(warm.fs.getPath("/files/small.bin"), BasicFileAttributes.class);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public long listSmall(Warm warm) throws Exception {
+        return count(warm.fs.getPath("/small"));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 2, batchSize = 1)
+    @Measurement(iterations = 5, batchSize = 1)
+    public long listSmallCold(Cold cold) throws Exception {
+        return count(cold.fs.getPath("/small"));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 2, batchSize = 1)
+    @Measurement(iterations = 5, batchSize = 1)
+    public long listLargeCold(Cold cold) throws Exception {
+        return count(cold.fs.getPath("/large"));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public long readSmall(Warm warm) throws Exception {
+        return read(warm.fs.getPath("/files/small.bin"), new byte[8192]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 2, batchSize = 1)
+    @Measurement(iterations = 5, batchSize = 1)
+    public long readLarge(Warm warm) throws Exception {
+        return read(warm.fs.getPath("/files/large.bin"), new byte[64 * 1024]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void writeSmall(Warm warm, Server server) throws Exception {
+        write(warm.fs.getPath("/files/small-written.bin"), server.small);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 2, batchSize = 1)
+    @Measurement(iterations = 5, batchSize = 1)
+    public void writeLarge(Warm warm, Server server) throws Exception {
+        write(warm.fs.getPath("/files/large-written.bin"), server.large);
+    }
+
+    /** back and forth */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public Path rename(Warm warm) throws Exception {
+        Path a = warm.fs.getPath("/files/rename.bin");
+        Path b = warm.fs.getPath("/files/renamed.bin");
+        Path moved = warm.renamed ? Files.move(b, a) : Files.move(a, b);
+        warm.renamed = !warm.renamed;
+        return moved;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 2, batchSize = 1)
+    @Measurement(iterations = 5, batchSize = 1)
+    public long treeWalkCold(Cold cold) throws Exception {
+        try (Stream<Path> paths = Files.walk(cold.fs.getPath("/tree"))) {
+            return paths.count();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public long treeWalk(Warm warm) throws Exception {
+        try (Stream<Path> paths = Files.walk(warm.fs.getPath("/tree"))) {
+            return paths.count();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.io.InputStream;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * EventsTest. (fake box server)
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+class EventsTest {
+
+    @RegisterExtension
+    static final FakeBoxExtension box = new FakeBoxExtension();
+
+    static FakeBoxServer server;
+
+    static String fileId;
+
+    @BeforeAll
+    static void setup() throws Exception {
+        server = box.getServer();
+        String dir = server.mkdir("0", "dir");
+        fileId = server.mkfile(dir, "file.txt", new byte[1000]);
+    }
+
+    @Test
+    void test01(@TempDir Path tmp) throws Exception {
+        Path jfr = tmp.resolve("box.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.github.fge.filesystem.box.Api");
+            recording.enable("com.github.fge.filesystem.box.Cache");
+            recording.enable("com.github.fge.filesystem.box.Transfer");
+            recording.start();
+
+            try (FileSystem fs = FakeBoxExtension.newFileSystem("events", Map.of())) {
+                Files.readAllBytes(fs.getPath("/dir/file.txt"));
+                try (InputStream is = Files.newInputStream(fs.getPath("/dir/file.txt"))) {
+                    is.readNBytes(100);
+                }
+                Files.exists(fs.getPath("/dir/file.txt"));
+                Files.write(fs.getPath("/dir/new.txt"), new byte[2000]);
+            }
+
+            recording.stop();
+            recording.dump(jfr);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(jfr);
+        assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("com.github.fge.filesystem.box.Api") &&
+                "getFolderItems".equals(e.getString("operation")) && e.getInt("errorStatus") == 0));
+        assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("com.github.fge.filesystem.box.Api") &&
+                "downloadFile".equals(e.getString("operation")) && fileId.equals(e.getString("itemId")) && "/dir/file.txt".equals(e.getString("path"))));
+        assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("com.github.fge.filesystem.box.Cache") &&
+                e.getBoolean("hit")));
+        assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("com.github.fge.filesystem.box.Transfer") &&
+                "download".equals(e.getString("operation")) && e.getLong("bytes") == 1000));
+        // bytes actually read until closed
+        assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("com.github.fge.filesystem.box.Transfer") &&
+                "download".equals(e.getString("operation")) && e.getLong("bytes") == 100));
+        assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("com.github.fge.filesystem.box.Transfer") &&
+                "upload".equals(e.getString("operation")) && e.getLong("bytes") == 2000));
+    }
+}
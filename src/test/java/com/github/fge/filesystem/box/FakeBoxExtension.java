@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+
+/**
+ * FakeBoxExtension.
+ * <p>
+ * starts a {@link FakeBoxServer} and lets file systems mounted by {@link #newFileSystem(String, Map)}
+ * connect to it through {@link FakeBoxOAuth2}. a static field shares one server in a class,
+ * an instance field starts one per test.
+ * <pre>
+ * &#64;RegisterExtension
+ * static final FakeBoxExtension box = new FakeBoxExtension();
+ * </pre>
+ * out of junit, e.g. a benchmark
+ * <pre>
+ * try (FakeBoxExtension box = FakeBoxExtension.open()) {
+ *     box.getServer().mkfile("0", "file.txt", bytes);
+ *     ...
+ * }
+ * </pre>
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+public class FakeBoxExtension implements BeforeAllCallback, AfterAllCallback, BeforeEachCallback, AfterEachCallback, AutoCloseable {
+
+    /** system property name of the oauth2 class of {@link BoxFileSystemRepository} */
+    static final String PROPERTY_OAUTH2 = "vavi.nio.file.box.BoxFileSystemRepository.oauth2";
+
+    private FakeBoxServer server;
+
+    /** started by {@link #beforeAll(ExtensionContext)} */
+    private boolean perClass;
+
+    /** @return a started one, close it after use */
+    public static FakeBoxExtension open() throws IOException {
+        FakeBoxExtension extension = new FakeBoxExtension();
+        extension.start();
+        return extension;
+    }
+
+    /** @return null when not started */
+    public FakeBoxServer getServer() {
+        return server;
+    }
+
+    /** mounts a file system of the fake server, the file cache is disabled */
+    public static FileSystem newFileSystem(String id, Map<String, Object> extra) throws IOException {
+        Map<String, Object> env = new HashMap<>(extra);
+        env.put(BoxFileSystemProvider.ENV_DISABLED_FILE_CACHE, true);
+        env.put(BoxFileSystemProvider.ENV_APP_CREDENTIAL, new DummyAppCredential());
+        env.put(BoxFileSystemProvider.ENV_USER_CREDENTIAL, new DummyUserCredential());
+        return new BoxFileSystemProvider().newFileSystem(URI.create("box:///?id=" + id), env);
+    }
+
+    private void start() throws IOException {
+        server = new FakeBoxServer();
+        System.setProperty(PROPERTY_OAUTH2, FakeBoxOAuth2.class.getName());
+        System.setProperty(FakeBoxServer.PROPERTY_BASE_URL, server.getBaseUrl());
+    }
+
+    @Override
+    public void close() {
+        System.clearProperty(PROPERTY_OAUTH2);
+        System.clearProperty(FakeBoxServer.PROPERTY_BASE_URL);
+        if (server != null) {
+            server.close();
+            server = null;
+        }
+    }
+
+    @Override
+    public void beforeAll(ExtensionContext context) throws IOException {
+        perClass = true;
+        start();
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+        close();
+    }
+
+    @Override
+    public void beforeEach(ExtensionContext context) throws IOException {
+        if (!perClass) {
+            start();
+        }
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        if (!perClass) {
+            close();
+        }
+    }
+}
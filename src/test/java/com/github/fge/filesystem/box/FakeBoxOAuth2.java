@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.io.IOException;
+
+import com.box.sdkgen.box.developertokenauth.BoxDeveloperTokenAuth;
+import com.box.sdkgen.client.BoxClient;
+import com.box.sdkgen.networking.baseurls.BaseUrls;
+import vavi.net.auth.UserCredential;
+import vavi.net.auth.oauth2.OAuth2;
+import vavi.net.auth.oauth2.OAuth2AppCredential;
+
+
+/**
+ * FakeBoxOAuth2.
+ * <p>
+ * returns a client connected to {@link FakeBoxServer}, set up by {@link FakeBoxExtension}.
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+public class FakeBoxOAuth2 implements OAuth2<UserCredential, BoxClient> {
+
+    /** all fields are ignored */
+    public FakeBoxOAuth2(OAuth2AppCredential appCredential) {
+    }
+
+    @Override
+    public BoxClient authorize(UserCredential credential) throws IOException {
+        String baseUrl = System.getProperty(FakeBoxServer.PROPERTY_BASE_URL);
+        return new BoxClient(new BoxDeveloperTokenAuth("fake"))
+                .withCustomBaseUrls(new BaseUrls(baseUrl, baseUrl + "/api", baseUrl + "/oauth2"));
+    }
+}
@@ -0,0 +1,1023 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+
+/**
+ * FakeBoxServer.
+ * <p>
+ * an in-process stand-in for the box rest api endpoints the driver uses.
+ * only the behavior the driver depends on is implemented.
+ * use with {@link FakeBoxOAuth2}.
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+public class FakeBoxServer implements Closeable {
+
+    /** system property name for {@link FakeBoxOAuth2} */
+    public static final String PROPERTY_BASE_URL = "vavi.nio.file.box.FakeBoxServer.baseUrl";
+
+    static final ObjectMapper mapper = new ObjectMapper();
+
+    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssXXX");
+
+    /** a box item */
+    static class Node {
+        final String id;
+        final String type;
+        volatile String name;
+        volatile Node parent;
+        final Map<String, Node> children = new LinkedHashMap<>();
+        volatile byte[] content = new byte[0];
+        volatile long created = System.currentTimeMillis();
+        volatile long modified = created;
+        volatile int version;
+        /** file version id, content */
+        final Map<String, byte[]> versions = new ConcurrentHashMap<>();
+        volatile String fileVersion;
+
+        Node(String id, String type, String name, Node parent) {
+            this.id = id;
+            this.type = type;
+            this.name = name;
+            this.parent = parent;
+        }
+
+        /** a new file version, previous ones are still downloadable */
+        void setContent(byte[] content) {
+            this.content = content;
+            fileVersion = id + "v" + versions.size();
+            versions.put(fileVersion, content);
+        }
+
+        boolean isFolder() {
+            return type.equals("folder");
+        }
+
+        long size() {
+            if (isFolder()) {
+                synchronized (children) {
+                    return children.values().stream().mapToLong(Node::size).sum();
+                }
+            } else {
+                return content.length;
+            }
+        }
+    }
+
+    private final HttpServer server;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final Map<String, Node> nodes = new ConcurrentHashMap<>();
+
+    private final AtomicLong ids = new AtomicLong(100);
+
+    private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+    private final long spaceAmount = 10L * 1024 * 1024 * 1024;
+
+    /** response delay for every request in milliseconds */
+    private volatile LongSupplier latency = () -> 0;
+
+    /** a fraction of requests answered by one of {@link #errorStatuses} */
+    private volatile double errorRate;
+
+    private volatile int[] errorStatuses = {429, 500, 503};
+
+    /** seconds for injected 429 and 503 */
+    private volatile int retryAfter = 1;
+
+    /** download bandwidth per connection in bytes/sec, 0 means unlimited */
+    private volatile long bandwidth;
+
+    /** requests in flight beyond this are answered by 429, 0 means unlimited */
+    private volatile int concurrencyLimit;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /** operation, requests being handled */
+    private final Map<String, AtomicInteger> operationsInFlight = new ConcurrentHashMap<>();
+
+    /** operation, the most requests handled at once since {@link #resetCounts()} */
+    private final Map<String, AtomicInteger> peaks = new ConcurrentHashMap<>();
+
+    /** part size of upload sessions */
+    static final int PART_SIZE = 8 * 1024 * 1024;
+
+    /** an upload session */
+    static class Session {
+        final String id;
+        final String folderId;
+        final String fileName;
+        final long fileSize;
+        /** for a new version */
+        volatile String fileId;
+        final Map<Long, byte[]> parts = new ConcurrentHashMap<>();
+
+        Session(String id, String folderId, String fileName, long fileSize) {
+            this.id = id;
+            this.folderId = folderId;
+            this.fileName = fileName;
+            this.fileSize = fileSize;
+        }
+    }
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    /** an entry of the event stream, the position is the index + 1 */
+    record Event(String eventType, String type, String id, String name, String parentId, int sequenceId) {}
+
+    private final List<Event> events = new ArrayList<>();
+
+    /** how long the realtime server holds a request when no change */
+    private volatile long longPollTimeout = 5000;
+
+    private final AtomicInteger stalledLongPolls = new AtomicInteger();
+
+    /** */
+    public FakeBoxServer() throws IOException {
+        Node root = new Node("0", "folder", "All Files", null);
+        nodes.put(root.id, root);
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /** e.g. "http://localhost:12345" */
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /** creates a folder directly on the server side */
+    public String mkdir(String parentId, String name) {
+        return add(parentId, "folder", name).id;
+    }
+
+    /** creates a file directly on the server side */
+    public String mkfile(String parentId, String name, byte[] content) {
+        Node node = add(parentId, "file", name);
+        node.setContent(content);
+        return node.id;
+    }
+
+    /** @return how many times the operation was requested, e.g. "GET /folders/{id}/items", "429" or "500" for throttled or injected ones */
+    public long getCount(String operation) {
+        LongAdder adder = counts.get(operation);
+        return adder != null ? adder.sum() : 0;
+    }
+
+    /** @return the most requests of the operation handled at once, e.g. "PUT /files/upload_sessions/{id}" */
+    public int getPeak(String operation) {
+        AtomicInteger peak = peaks.get(operation);
+        return peak != null ? peak.get() : 0;
+    }
+
+    /** limits download throughput of each connection */
+    public void setBandwidth(long bytesPerSecond) {
+        this.bandwidth = bytesPerSecond;
+    }
+
+    /** answers 429 with Retry-After when more requests than the limit are in flight */
+    public void setConcurrencyLimit(int limit) {
+        this.concurrencyLimit = limit;
+    }
+
+    /** sets a delay for every response */
+    public void setDelay(long millis) {
+        this.latency = () -> millis;
+    }
+
+    /** sets a delay drawn for every response, e.g. {@link #uniform(long, long)} */
+    public void setLatency(LongSupplier millis) {
+        this.latency = millis;
+    }
+
+    /** @return milliseconds evenly distributed between min and max */
+    public static LongSupplier uniform(long min, long max) {
+        return () -> ThreadLocalRandom.current().nextLong(min, max + 1);
+    }
+
+    /** @return milliseconds log-normally distributed, a long tail like a real network */
+    public static LongSupplier logNormal(long median, long p99) {
+        double mu = Math.log(median);
+        double sigma = (Math.log(p99) - mu) / 2.326; // z of 99%
+        return () -> Math.round(Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+
+    /**
+     * answers a fraction of requests by an error before handling them, long polls are excluded.
+     * @param rate 0 to 1
+     * @param statuses chosen at random, 429 and 503 come with Retry-After
+     */
+    public void setErrorRate(double rate, int... statuses) {
+        if (statuses.length > 0) {
+            this.errorStatuses = statuses;
+        }
+        this.errorRate = rate;
+    }
+
+    /** sets Retry-After seconds of injected 429 and 503 */
+    public void setRetryAfter(int seconds) {
+        this.retryAfter = seconds;
+    }
+
+    /** @return an injected status, 0 if not */
+    private int fault(String route) {
+        double rate = errorRate;
+        if (rate <= 0 || route.equals("GET /realtime") || ThreadLocalRandom.current().nextDouble() >= rate) {
+            return 0;
+        }
+        int[] statuses = errorStatuses;
+        return statuses[ThreadLocalRandom.current().nextInt(statuses.length)];
+    }
+
+    /** @return content of the file, null when not found */
+    public byte[] getContent(String parentId, String name) {
+        Node parent = nodes.get(parentId);
+        synchronized (parent.children) {
+            Node node = parent.children.get(name);
+            return node != null ? node.content : null;
+        }
+    }
+
+    /** @return id of the file, null when not found */
+    public String getId(String parentId, String name) {
+        Node parent = nodes.get(parentId);
+        synchronized (parent.children) {
+            Node node = parent.children.get(name);
+            return node != null ? node.id : null;
+        }
+    }
+
+    /** changes the content as another client did, a new version */
+    public void update(String id, byte[] content) {
+        Node node = nodes.get(id);
+        node.setContent(content);
+        node.modified = System.currentTimeMillis();
+        node.version++;
+        event("ITEM_UPLOAD", node);
+    }
+
+    /** renames or moves as another client did */
+    public void move(String id, String parentId, String name) {
+        move(nodes.get(id), nodes.get(parentId), name);
+    }
+
+    /** deletes as another client did */
+    public void delete(String id) {
+        Node node = nodes.get(id);
+        synchronized (node.parent.children) {
+            node.parent.children.remove(node.name);
+        }
+        remove(node);
+        event("ITEM_TRASH", node);
+    }
+
+    /** sets how long a long poll request waits for a change */
+    public void setLongPollTimeout(long millis) {
+        this.longPollTimeout = millis;
+    }
+
+    /** the next long poll requests never answer, as a lost connection */
+    public void stallLongPolls(int count) {
+        stalledLongPolls.set(count);
+    }
+
+    void event(String eventType, Node node) {
+        synchronized (events) {
+            events.add(new Event(eventType, node.type, node.id, node.name, node.parent != null ? node.parent.id : null, node.version));
+            events.notifyAll();
+        }
+    }
+
+    /** resets all operation counts and peaks */
+    public void resetCounts() {
+        counts.clear();
+        peaks.clear();
+    }
+
+    Node add(String parentId, String type, String name) {
+        Node parent = nodes.get(parentId);
+        Node node = new Node(String.valueOf(ids.incrementAndGet()), type, name, parent);
+        nodes.put(node.id, node);
+        synchronized (parent.children) {
+            parent.children.put(name, node);
+        }
+        event(type.equals("folder") ? "ITEM_CREATE" : "ITEM_UPLOAD", node);
+        return node;
+    }
+
+    // ----
+
+    /** a route */
+    @FunctionalInterface
+    interface Handler {
+        void handle(HttpExchange exchange, Matcher matcher, Map<String, String> query) throws IOException;
+    }
+
+    private final Map<String, Map.Entry<Pattern, Handler>> routes = new LinkedHashMap<>();
+
+    {
+        route("GET", "/users/me", this::getUserMe);
+        route("POST", "/folders", this::createFolder);
+        route("GET", "/folders/{id}", this::getFolder);
+        route("POST", "/folders/{id}/copy", (exchange, matcher, query) -> copyItem(exchange, matcher, query, "folder"));
+        route("GET", "/folders/{id}/items", this::getFolderItems);
+        route("PUT", "/folders/{id}", (exchange, matcher, query) -> updateItem(exchange, matcher, query, "folder"));
+        route("GET", "/files/{id}", this::getFile);
+        route("PUT", "/files/{id}", (exchange, matcher, query) -> updateItem(exchange, matcher, query, "file"));
+        route("GET", "/files/{id}/content", this::downloadFile);
+        route("POST", "/files/{id}/copy", (exchange, matcher, query) -> copyItem(exchange, matcher, query, "file"));
+        route("DELETE", "/files/{id}", (exchange, matcher, query) -> deleteItem(exchange, matcher, query, "file"));
+        route("DELETE", "/folders/{id}", (exchange, matcher, query) -> deleteItem(exchange, matcher, query, "folder"));
+        route("OPTIONS", "/events", this::getRealtimeServers);
+        route("GET", "/events", this::getEvents);
+        route("GET", "/realtime", this::longPoll);
+        route("POST", "/files/content", this::uploadFile);
+        route("POST", "/files/upload_sessions", this::createUploadSession);
+        route("POST", "/files/{id}/content", this::uploadFileVersion);
+        route("POST", "/files/{id}/upload_sessions", this::createUploadSession);
+        route("PUT", "/files/upload_sessions/{id}", this::uploadPart);
+        route("POST", "/files/upload_sessions/{id}/commit", this::commitUploadSession);
+        route("DELETE", "/files/upload_sessions/{id}", this::deleteUploadSession);
+    }
+
+    /** {id} in the path matches one segment */
+    void route(String method, String path, Handler handler) {
+        Pattern pattern = Pattern.compile(method + " " + path.replace("{id}", "([^/]+)"));
+        routes.put(method + " " + path, Map.entry(pattern, handler));
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            // upload url is ".../api/2.0"
+            path = path.replaceFirst("^/api", "").replaceFirst("^/2\\.0", "");
+            String request = exchange.getRequestMethod() + " " + path;
+            for (Map.Entry<String, Map.Entry<Pattern, Handler>> route : routes.entrySet()) {
+                Matcher matcher = route.getValue().getKey().matcher(request);
+                if (matcher.matches()) {
+                    int limit = concurrencyLimit;
+                    try {
+                        if (inFlight.incrementAndGet() > limit && limit > 0) {
+                            counts.computeIfAbsent("429", k -> new LongAdder()).increment();
+                            exchange.getResponseHeaders().set("Retry-After", "1");
+                            error(exchange, 429, "rate_limit_exceeded", "Request rate limit exceeded, please try again later");
+                            return;
+                        }
+                        long delay = latency.getAsLong();
+                        if (delay > 0) {
+                            Thread.sleep(delay);
+                        }
+                        int status = fault(route.getKey());
+                        if (status != 0) {
+                            counts.computeIfAbsent(String.valueOf(status), k -> new LongAdder()).increment();
+                            if (status == 429 || status == 503) {
+                                exchange.getResponseHeaders().set("Retry-After", String.valueOf(retryAfter));
+                            }
+                            error(exchange, status, status == 429 ? "rate_limit_exceeded" : "internal_server_error", "injected");
+                            return;
+                        }
+                        counts.computeIfAbsent(route.getKey(), k -> new LongAdder()).increment();
+                        AtomicInteger operationInFlight = operationsInFlight.computeIfAbsent(route.getKey(), k -> new AtomicInteger());
+                        peaks.computeIfAbsent(route.getKey(), k -> new AtomicInteger()).accumulateAndGet(operationInFlight.incrementAndGet(), Math::max);
+                        try {
+                            route.getValue().getValue().handle(exchange, matcher, parseQuery(exchange.getRequestURI().getRawQuery()));
+                        } finally {
+                            operationInFlight.decrementAndGet();
+                        }
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                    return;
+                }
+            }
+            error(exchange, 404, "not_found", request);
+        } catch (Exception e) {
+            e.printStackTrace();
+            error(exchange, 500, "internal_server_error", String.valueOf(e));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery != null) {
+            for (String pair : rawQuery.split("&")) {
+                int p = pair.indexOf('=');
+                if (p > 0) {
+                    query.put(URLDecoder.decode(pair.substring(0, p), StandardCharsets.UTF_8), URLDecoder.decode(pair.substring(p + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return query;
+    }
+
+    static void send(HttpExchange exchange, int status, Object json) throws IOException {
+        byte[] body = json != null ? mapper.writeValueAsBytes(json) : new byte[0];
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        }
+    }
+
+    static void error(HttpExchange exchange, int status, String code, String message) throws IOException {
+        ObjectNode json = mapper.createObjectNode();
+        json.put("type", "error");
+        json.put("status", status);
+        json.put("code", code);
+        json.put("message", message);
+        json.put("request_id", Long.toHexString(System.nanoTime()));
+        send(exchange, status, json);
+    }
+
+    static String time(long millis) {
+        return OffsetDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.ofHours(9)).format(formatter);
+    }
+
+    /** @param fields null means all fields */
+    ObjectNode toJson(Node node, List<String> fields) {
+        ObjectNode json = mapper.createObjectNode();
+        json.put("type", node.type);
+        json.put("id", node.id);
+        json.put("etag", String.valueOf(node.version));
+        if (fields == null || fields.contains("name")) {
+            json.put("name", node.name);
+        }
+        if (fields == null || fields.contains("size")) {
+            json.put("size", node.size());
+        }
+        if (fields == null || fields.contains("created_at")) {
+            json.put("created_at", time(node.created));
+        }
+        if (fields == null || fields.contains("modified_at")) {
+            json.put("modified_at", time(node.modified));
+        }
+        if ((fields == null || fields.contains("sha1")) && !node.isFolder()) {
+            json.put("sha1", sha1(node.content));
+        }
+        if ((fields == null || fields.contains("file_version")) && !node.isFolder()) {
+            ObjectNode fileVersion = json.putObject("file_version");
+            fileVersion.put("type", "file_version");
+            fileVersion.put("id", node.fileVersion);
+        }
+        if ((fields == null || fields.contains("parent")) && node.parent != null) {
+            ObjectNode parent = json.putObject("parent");
+            parent.put("type", "folder");
+            parent.put("id", node.parent.id);
+            parent.put("name", node.parent.name);
+        }
+        if (fields == null || fields.contains("permissions")) {
+            ObjectNode permissions = json.putObject("permissions");
+            for (String permission : Arrays.asList("can_delete", "can_download", "can_invite_collaborator", "can_rename",
+                    "can_set_share_access", "can_share", "can_annotate", "can_comment", "can_preview", "can_upload",
+                    "can_view_annotations_all", "can_view_annotations_self")) {
+                permissions.put(permission, true);
+            }
+        }
+        return json;
+    }
+
+    static String sha1(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** @return name, content */
+    static Map<String, byte[]> parseMultipart(HttpExchange exchange) throws IOException {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        byte[] boundary = ("--" + contentType.replaceFirst(".*boundary=\"?([^\";]+)\"?.*", "$1")).getBytes(StandardCharsets.ISO_8859_1);
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        Map<String, byte[]> parts = new HashMap<>();
+        int p = indexOf(body, boundary, 0);
+        while (p >= 0) {
+            int start = p + boundary.length + 2; // CRLF
+            int next = indexOf(body, boundary, start);
+            if (next < 0) {
+                break;
+            }
+            int headerEnd = indexOf(body, "\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1), start);
+            String headers = new String(body, start, headerEnd - start, StandardCharsets.UTF_8);
+            String name = headers.replaceFirst("(?s).*?\\bname=\"([^\"]+)\".*", "$1");
+            parts.put(name, Arrays.copyOfRange(body, headerEnd + 4, next - 2)); // CRLF before the boundary
+            p = next;
+        }
+        return parts;
+    }
+
+    private static int indexOf(byte[] bytes, byte[] pattern, int from) {
+        outer:
+        for (int i = from; i <= bytes.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (bytes[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    static List<String> fields(Map<String, String> query) {
+        String fields = query.get("fields");
+        return fields != null ? Arrays.asList(fields.split(",")) : null;
+    }
+
+    Node node(HttpExchange exchange, String id, String type) throws IOException {
+        Node node = nodes.get(id);
+        if (node == null || !node.type.equals(type)) {
+            error(exchange, 404, "not_found", "Not Found: " + id);
+            return null;
+        }
+        return node;
+    }
+
+    ObjectNode files(Node node) {
+        ObjectNode json = mapper.createObjectNode();
+        json.put("total_count", 1);
+        json.putArray("entries").add(toJson(node, null));
+        return json;
+    }
+
+    /** creates or replaces a file */
+    Node putFile(Node parent, String name, byte[] content, HttpExchange exchange) throws IOException {
+        synchronized (parent.children) {
+            if (parent.children.containsKey(name)) {
+                error(exchange, 409, "item_name_in_use", "Item with the same name already exists: " + name);
+                return null;
+            }
+        }
+        Node node = add(parent.id, "file", name);
+        node.setContent(content);
+        return node;
+    }
+
+    private void uploadFile(HttpExchange exchange, Matcher matcher, Map<String, String> query) throws IOException {
+        Map<String, byte[]> parts = parseMultipart(exchange);
+        JsonNode attributes = mapper.readTree(parts.get("attributes"));
+        Node parent = node(exchange, attributes.get("parent").get("id").asText(), "folder");
+        if (parent == null) {
+            return;
+        }
+        Node node = putFile(parent, attributes.get("name").asText(), parts.get("file"), exchange);
+        if (node != null) {
+            send(exchange, 201, files(node));
+        }
+    }
+
+    /** replaces the content, the id is kept */
+    Node putVersion(Node node, byte[] content, HttpExchange exchange) throws IOException {
+        String ifMatch = exchange.getRequestHeaders().getFirst("If-Match");
+        if (ifMatch != null && !ifMatch.equals(String.valueOf(node.version))) {
+            error(exchange, 412, "precondition_failed", "The resource has been modified. Please retrieve the resource again and retry");
+            return null;
+        }
+        node.setContent(content);
+        node.modified = System.currentTimeMillis();
+        node.version++;
+        event("ITEM_UPLOAD", node);
+        return node;
+    }
+
+    private void uploadFileVersion(HttpExchange exchange, Matcher matcher, Map<String, String> query) throws IOException {
+        Node node = node(exchange, matcher.group(1), "file");
+        if (node == null) {
+            return;
+        }
+        Map<String, byte[]> parts = parseMultipart(exchange);
+        if (putVersion(node, parts.get("file"), exchange) != null) {
+            send(exchange, 201, files(node));
+        }
+    }
+
+    /** for a new file or a new version of {id} */
+    private void createUploadSession(HttpExchange exchange, Matcher matcher, Map<String, String> query) throws IOException {
+        JsonNode body = mapper.readTree(exchange.getRequestBody());
+        Session session;
+        if (matcher.groupCount() > 0) {
+            Node node = node(exchange, matcher.group(1), "file");
+            if (node == null) {
+                return;
+            }
+            session = new Session(Long.toHexString(ids.incrementAndGet()), node.parent.id, node.name, body.get("file_size").asLong());
+            session.fileId = node.id;
+        } else {
+            session = new Session(Long.toHexString(ids.incrementAndGet()), body.get("folder_id").asText(), body.get("file_name").asText(), body.get("file_size").asLong());
+        }
+        sessions.put(session.id, session);
+        ObjectNode json = mapper.createObjectNode();
+        json.put("type", "upload_session");
+        json.put("id", session.id);
+        json.put("part_size", PART_SIZE);
+        json.put("total_parts", (session.fileSize + PART_SIZE - 1) / PART_SIZE);
+        json.put("num_parts_processed", 0);
+        json.put("session_expires_at", time(System.currentTimeMillis() + 24 * 60 * 60 * 1000));
+        send(exchange, 201, json);
+    }
+
+    private void uploadPart(HttpExchange exchange, Matcher matcher, Map<String, String> query) throws IOException {
+        Session session = sessions.get(matcher.group(1));
+        if (session == null) {
+            error(exchange, 404, "not_found", "session");
+            return;
+        }
+        byte[] bytes = exchange.getRequestBody().readAllBytes();
+        String digest = exchange.getRequestHeaders().getFirst("Digest");
+        if (digest == null || !digest.equals("sha=" + Base64.getEncoder().encodeToString(HexFormat.of().parseHex(sha1(bytes))))) {
+            error(exchange, 412, "precondition_failed", "digest: " + digest);
+            return;
+        }
+        long offset = Long.parseLong(exchange.getRequestHeaders().getFirst("Content-Range").replaceFirst("bytes (\\d+)-.*", "$1"));
+        session.parts.put(offset, bytes);
+        ObjectNode json = mapper.createObjectNode();
+        ObjectNode part = json.putObject("part");
+        part.put("part_id", String.format("%08X", offset / PART_SIZE));
+        part.put("offset", offset);
+        part.put("size", bytes.length);
+        part.put("sha1", sha1(bytes));
+        send(exchange, 200, json);
+    }
+
+    private void commitUploadSession(HttpExchange exchange, Matcher matcher, Map<String, String> query) throws IOException {
+        Session session = sessions.remove(matcher.group(1));
+        if (session == null) {
+            error(exchange, 404, "not_found", "session");
+            return;
+        }
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        session.parts.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(e -> content.writeBytes(e.getValue()));
+        byte[] bytes = content.toByteArray();
+        String digest = exchange.getRequestHeaders().getFirst("Digest");
+        if (bytes.length != session.fileSize || digest == null || !digest.equals("sha=" + Base64.getEncoder().encodeToString(HexFormat.of().parseHex(sha1(bytes))))) {
+            error(exchange, 412, "precondition_failed", "size: " + bytes.length + ", digest: " + digest);
+            return;
+        }
+        if (session.fileId != null) {
+            Node node = node(exchange, session.fileId, "file");
+            if (node != null && putVersion(node, bytes, exchange) != null) {
+                send(exchange, 201, files(node));
+            }
+            return;
+        }
+        Node parent = node(exchange, session.folderId, "folder");
+        if (parent == null) {
+            return;
+        }
+        Node node = putFile(parent, session.fileName, bytes, exchange);
+        if (node != null) {
+            send(exchange, 201, files(node));
+        }
+    }
+
+    private void deleteUploadSession(HttpExchange exchange, Matcher matcher, Map<String, String> query) throws IOException {
+        sessions.remove(matcher.group(1));
+        send(exchange, 204, null);
+    }
+
+    private void getUserMe(HttpExchange exchange, Matcher matcher, Map<String, String> query) throws IOException {
+        ObjectNode json = mapper.createObjectNode();
+        json.put("type", "user");
+        json.put("id", "1");
+        json.put("name", "fake");
+        json.put("login", "fake@example.com");
+        json.put("space_amount", spaceAmount);
+        json.put("space_used", nodes.get("0").size());
+        send(exchange, 200, json);
+    }
+
+    private void getFolder(HttpExchange exchange, Matcher matcher, Map<String, String> query) throws IOException {
+        Node node = node(exchange, matcher.group(1), "folder");
+        if (node != null) {
+            send(exchange, 200, toJson(node, fields(query)));
+        }
+    }
+
+    private void getFile(HttpExchange exchange, Matcher matcher, Map<String, String> query) throws IOException {
+        Node node = node(exchange, matcher.group(1), "file");
+        if (node != null) {
+            send(exchange, 200, toJson(node, fields(query)));
+        }
+    }
+
+    /** supports a single "bytes=a-b" range */
+    private void downloadFile(HttpExchange exchange, Matcher matcher, Map<String, String> query) throws IOException {
+        Node node = node(exchange, matcher.group(1), "file");
+        if (node == null) {
+            return;
+        }
+        byte[] content = query.get("version") != null ? node.versions.get(query.get("version")) : node.content;
+        if (content == null) {
+            error(exchange, 404, "not_found", "Could not find the specified resource");
+            return;
+        }
+        int start = 0;
+        int end = content.length - 1;
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        Matcher m = range != null ? Pattern.compile("bytes=(\\d+)-(\\d*)").matcher(range) : null;
+        if (m != null && m.matches()) {
+            start = Integer.parseInt(m.group(1));
+            if (!m.group(2).isEmpty()) {
+                end = Math.min(end, Integer.parseInt(m.group(2)));
+            }
+            if (start > end) {
+                exchange.getResponseHeaders().set("Content-Range", "bytes */" + content.length);
+                exchange.sendResponseHeaders(416, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + content.length);
+        }
+        int length = end - start + 1;
+        exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+        exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+        exchange.sendResponseHeaders(m != null && m.matches() ? 206 : 200, length == 0 ? -1 : length);
+        if (length > 0) {
+            try (OutputStream os = exchange.getResponseBody()) {
+                int slice = 64 * 1024;
+                for (int p = start; p <= end; p += slice) {
+                    os.write(content, p, Math.min(slice, end + 1 - p));
+                    if (bandwidth > 0) {
+                        try {
+                            Thread.sleep(slice * 1000L / bandwidth);
+                        } catch (InterruptedException e) {
+                            throw new IOException(e);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /** a name in use is a conflict */
+    private void createFolder(HttpExchange exchange, Matcher matcher, Map<String, String> query) throws IOException {
+        JsonNode body = mapper.readTree(exchange.getRequestBody());
+        Node parent = node(exchange, body.get("parent").get("id").asText(), "folder");
+        if (parent == null) {
+            return;
+        }
+        String name = body.get("name").asText();
+        synchronized (parent.children) {
+            if (parent.children.containsKey(name)) {
+                error(exchange, 409, "item_name_in_use", "Item with the same name already exists: " + name);
+                return;
+            }
+        }
+        send(exchange, 201, toJson(add(parent.id, "folder", name), fields(query)));
+    }
+
+    /** a folder is copied with its descendants */
+    private void copyItem(HttpExchange exchange, Matcher matcher, Map<String, String> query, String type) throws IOException {
+        Node node = node(exchange, matcher.group(1), type);
+        if (node == null) {
+            return;
+        }
+        JsonNode body = mapper.readTree(exchange.getRequestBody());
+        Node parent = node(exchange, body.get("parent").get("id").asText(), "folder");
+        if (parent == null) {
+            return;
+        }
+        String name = body.has("name") ? body.get("name").asText() : node.name;
+        synchronized (parent.children) {
+            if (parent.children.containsKey(name)) {
+                error(exchange, 409, "item_name_in_use", "Item with the same name already exists: " + name);
+                return;
+            }
+        }
+        send(exchange, 201, toJson(copy(node, parent, name), fields(query)));
+    }
+
+    private Node copy(Node node, Node parent, String name) {
+        Node copied = add(parent.id, node.type, name);
+        copied.setContent(node.content);
+        List<Node> children;
+        synchronized (node.children) {
+            children = new ArrayList<>(node.children.values());
+        }
+        children.forEach(child -> copy(child, copied, child.name));
+        return copied;
+    }
+
+    /** rename and/or move */
+    private void updateItem(HttpExchange exchange, Matcher matcher, Map<String, String> query, String type) throws IOException {
+        Node node = node(exchange, matcher.group(1), type);
+        if (node == null) {
+            return;
+        }
+        JsonNode body = mapper.readTree(exchange.getRequestBody());
+        String name = body.has("name") ? body.get("name").asText() : node.name;
+        Node parent = body.has("parent") ? nodes.get(body.get("parent").get("id").asText()) : node.parent;
+        if (parent == null) {
+            error(exchange, 404, "not_found", "parent");
+            return;
+        }
+        move(node, parent, name);
+        send(exchange, 200, toJson(node, fields(query)));
+    }
+
+    /** renames or moves */
+    private void move(Node node, Node parent, String name) {
+        boolean moved = parent != node.parent;
+        synchronized (node.parent.children) {
+            node.parent.children.remove(node.name);
+        }
+        node.name = name;
+        node.parent = parent;
+        synchronized (parent.children) {
+            parent.children.put(name, node);
+        }
+        node.version++;
+        event(moved ? "ITEM_MOVE" : "ITEM_RENAME", node);
+    }
+
+    private void getRealtimeServers(HttpExchange exchange, Matcher matcher, Map<String, String> query) throws IOException {
+        ObjectNode json = mapper.createObjectNode();
+        json.put("chunk_size", 1);
+        ObjectNode server = json.putArray("entries").addObject();
+        server.put("type", "realtime_server");
+        server.put("url", getBaseUrl() + "/realtime?channel=0");
+        server.put("ttl", "10");
+        server.put("max_retries", "10");
+        server.put("retry_timeout", longPollTimeout / 1000);
+        send(exchange, 200, json);
+    }
+
+    /** "now" or a position */
+    private long position(String streamPosition) {
+        synchronized (events) {
+            return streamPosition == null || streamPosition.equals("now") ? events.size() : Long.parseLong(streamPosition);
+        }
+    }
+
+    private void getEvents(HttpExchange exchange, Matcher matcher, Map<String, String> query) throws IOException {
+        long position = position(query.get("stream_position"));
+        int limit = Math.min(500, Integer.parseInt(query.getOrDefault("limit", "100")));
+        ObjectNode json = mapper.createObjectNode();
+        ArrayNode entries = json.putArray("entries");
+        long next;
+        synchronized (events) {
+            next = Math.min(events.size(), position + limit);
+            for (long i = position; i < next; i++) {
+                Event event = events.get((int) i);
+                ObjectNode entry = entries.addObject();
+                entry.put("type", "event");
+                entry.put("event_id", "event-" + i);
+                entry.put("event_type", event.eventType());
+                ObjectNode source = entry.putObject("source");
+                source.put("type", event.type());
+                source.put("id", event.id());
+                source.put("name", event.name());
+                source.put("sequence_id", String.valueOf(event.sequenceId()));
+                if (event.parentId() != null) {
+                    source.putObject("parent").put("type", "folder").put("id", event.parentId());
+                }
+            }
+        }
+        json.put("chunk_size", entries.size());
+        json.put("next_stream_position", String.valueOf(next));
+        send(exchange, 200, json);
+    }
+
+    /** holds the request until a change after the position */
+    private void longPoll(HttpExchange exchange, Matcher matcher, Map<String, String> query) throws IOException {
+        if (stalledLongPolls.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+        }
+        long position = position(query.get("stream_position"));
+        long until = System.currentTimeMillis() + longPollTimeout;
+        boolean changed;
+        synchronized (events) {
+            while (!(changed = events.size() > position) && System.currentTimeMillis() < until) {
+                try {
+                    events.wait(Math.max(1, until - System.currentTimeMillis()));
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+        }
+        send(exchange, 200, mapper.createObjectNode().put("message", changed ? "new_change" : "reconnect"));
+    }
+
+    /** a folder which has children needs "recursive=true" */
+    private void deleteItem(HttpExchange exchange, Matcher matcher, Map<String, String> query, String type) throws IOException {
+        Node node = node(exchange, matcher.group(1), type);
+        if (node == null) {
+            return;
+        }
+        synchronized (node.children) {
+            if (!node.children.isEmpty() && !Boolean.parseBoolean(query.get("recursive"))) {
+                error(exchange, 400, "folder_not_empty", "Cannot delete - folder not empty");
+                return;
+            }
+        }
+        synchronized (node.parent.children) {
+            node.parent.children.remove(node.name);
+        }
+        remove(node);
+        event("ITEM_TRASH", node);
+        send(exchange, 204, null);
+    }
+
+    private void remove(Node node) {
+        nodes.remove(node.id);
+        synchronized (node.children) {
+            node.children.values().forEach(this::remove);
+        }
+    }
+
+    /** supports both offset and marker based pagination, default limit is 100 as box */
+    private void getFolderItems(HttpExchange exchange, Matcher matcher, Map<String, String> query) throws IOException {
+        Node node = node(exchange, matcher.group(1), "folder");
+        if (node == null) {
+            return;
+        }
+        List<Node> children;
+        synchronized (node.children) {
+            children = new ArrayList<>(node.children.values());
+        }
+        int limit = Math.min(1000, Integer.parseInt(query.getOrDefault("limit", "100")));
+        boolean usemarker = Boolean.parseBoolean(query.getOrDefault("usemarker", "false"));
+        int offset = Integer.parseInt(usemarker ? query.getOrDefault("marker", "0") : query.getOrDefault("offset", "0"));
+        List<String> fields = fields(query);
+
+        ObjectNode json = mapper.createObjectNode();
+        ArrayNode entries = json.putArray("entries");
+        int end = Math.min(children.size(), offset + limit);
+        for (int i = offset; i < end; i++) {
+            entries.add(toJson(children.get(i), fields));
+        }
+        json.put("limit", limit);
+        if (usemarker) {
+            if (end < children.size()) {
+                json.put("next_marker", String.valueOf(end));
+            }
+        } else {
+            json.put("offset", offset);
+            json.put("total_count", children.size());
+        }
+        send(exchange, 200, json);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * FieldsTest. (fake box server)
+ * <p>
+ * permissions are fetched only when an access mode is checked.
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+class FieldsTest {
+
+    @RegisterExtension
+    static final FakeBoxExtension box = new FakeBoxExtension();
+
+    static FakeBoxServer server;
+
+    static String fileId;
+
+    @BeforeAll
+    static void setup() throws Exception {
+        server = box.getServer();
+        String dir = server.mkdir("0", "dir");
+        fileId = server.mkfile(dir, "file.txt", "Hello".getBytes());
+    }
+
+    @Test
+    void test01() throws Exception {
+        try (FileSystem fs = FakeBoxExtension.newFileSystem("fields", Map.of())) {
+            Path dir = fs.getPath("/dir");
+            Path file = dir.resolve("file.txt");
+            assertTrue(Files.exists(file));
+            server.resetCounts();
+
+            // existence only
+            assertTrue(Files.exists(file));
+            assertTrue(Files.exists(dir));
+            assertEquals(0, server.getCount("GET /files/{id}"));
+            assertEquals(0, server.getCount("GET /folders/{id}"));
+
+            // once per version
+            assertTrue(Files.isReadable(file));
+            assertTrue(Files.isWritable(file));
+            assertEquals(1, server.getCount("GET /files/{id}"));
+
+            // a folder has its own permissions
+            assertTrue(Files.isReadable(dir));
+            assertTrue(Files.isWritable(dir));
+            assertEquals(1, server.getCount("GET /folders/{id}"));
+
+            // a new version
+            Files.write(file, "Hello, World".getBytes());
+            assertTrue(Files.isReadable(file));
+            assertTrue(server.getCount("GET /files/{id}") > 1);
+        }
+    }
+}
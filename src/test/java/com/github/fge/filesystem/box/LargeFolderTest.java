@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * LargeFolderTest. (fake box server)
+ * <p>
+ * lists a folder which has 100k items.
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+class LargeFolderTest {
+
+    static final int ITEMS = 100_000;
+
+    @RegisterExtension
+    static final FakeBoxExtension box = new FakeBoxExtension();
+
+    static FakeBoxServer server;
+
+    @BeforeAll
+    static void setup() throws Exception {
+        server = box.getServer();
+        String big = server.mkdir("0", "big");
+        byte[] content = "Hello".getBytes();
+        for (int i = 0; i < ITEMS; i++) {
+            server.mkfile(big, String.format("file%06d.txt", i), content);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {100, 500, 1000})
+    void test01(int pageSize) throws Exception {
+        try (FileSystem fs = FakeBoxExtension.newFileSystem("list" + pageSize, Map.of(BoxFileSystemProvider.ENV_PAGE_SIZE, pageSize))) {
+            server.resetCounts();
+
+            long t = System.currentTimeMillis();
+            long count;
+            try (Stream<Path> s = Files.list(fs.getPath("/big"))) {
+                count = s.count();
+            }
+System.err.printf("list: page size: %d, %d items, %d pages, %d ms%n", pageSize, count, server.getCount("GET /folders/{id}/items"), System.currentTimeMillis() - t);
+
+            assertEquals(ITEMS, count);
+            assertTrue(server.getCount("GET /folders/{id}/items") >= ITEMS / pageSize);
+        }
+    }
+
+    @Test
+    void test02() throws Exception {
+        try (FileSystem fs = FakeBoxExtension.newFileSystem("early", Map.of())) {
+            Files.exists(fs.getPath("/big")); // resolve the folder itself
+            server.resetCounts();
+
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(fs.getPath("/big"))) {
+                Iterator<Path> i = ds.iterator();
+                for (int n = 0; n < 10; n++) {
+                    i.next();
+                }
+            }
+
+            assertEquals(1, server.getCount("GET /folders/{id}/items"));
+        }
+    }
+
+    @Test
+    void test03() throws Exception {
+        try (FileSystem fs = FakeBoxExtension.newFileSystem("stat", Map.of())) {
+            Files.exists(fs.getPath("/big"));
+            server.resetCounts();
+
+            long t = System.currentTimeMillis();
+            for (int i = 0; i < ITEMS; i += ITEMS / 100) {
+                assertTrue(Files.exists(fs.getPath("/big", String.format("file%06d.txt", i))));
+            }
+            assertTrue(Files.notExists(fs.getPath("/big", "._file000000.txt")));
+System.err.printf("stat: 101 lookups, %d pages, %d ms%n", server.getCount("GET /folders/{id}/items"), System.currentTimeMillis() - t);
+
+            // only the first lookup lists the folder
+            assertEquals(ITEMS / 1000, server.getCount("GET /folders/{id}/items"));
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchEvent.Kind;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.box.sdkgen.client.BoxClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * LongPollTest. (fake box server)
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+class LongPollTest {
+
+    @RegisterExtension
+    final FakeBoxExtension box = new FakeBoxExtension();
+
+    FakeBoxServer server;
+
+    Path positionFile;
+
+    BlockingQueue<Map.Entry<String, Kind<?>>> notifications = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    void setup() throws Exception {
+        server = box.getServer();
+        positionFile = Files.createTempDirectory("vavi-nio-file-box-test").resolve("stream_position");
+
+        System.setProperty("vavi.nio.file.watch.webhook.NotificationProvider.box", ".box.webhook.longpoll");
+        System.setProperty("vavi.nio.file.box.webhook.longpoll.streamPosition", positionFile.toString());
+    }
+
+    @AfterEach
+    void teardown() throws Exception {
+        System.clearProperty("vavi.nio.file.watch.webhook.NotificationProvider.box");
+        System.clearProperty("vavi.nio.file.box.webhook.longpoll.streamPosition");
+        Files.deleteIfExists(positionFile);
+        Files.deleteIfExists(positionFile.getParent());
+    }
+
+    BoxWatchService newWatchService() throws Exception {
+        BoxClient client = new FakeBoxOAuth2(null).authorize(null);
+        BoxWatchService watchService = new BoxWatchService(client);
+        watchService.setNotificationListener((id, kind) -> notifications.add(Map.entry(id, kind)));
+        return watchService;
+    }
+
+    void assertNotified(String id, Kind<?> kind) throws Exception {
+        long t = System.nanoTime();
+        Map.Entry<String, Kind<?>> notification = notifications.poll(1, TimeUnit.SECONDS);
+System.err.printf("latency: %.1f ms%n", (System.nanoTime() - t) / 1e6);
+        assertEquals(Map.entry(id, kind), notification);
+    }
+
+    @Test
+    void test01() throws Exception {
+        try (BoxWatchService watchService = newWatchService()) {
+            while (!Files.exists(positionFile)) {
+                Thread.sleep(10);
+            }
+
+            String id = server.mkfile("0", "file.txt", "Hello".getBytes());
+            assertNotified(id, ENTRY_CREATE);
+
+            // box reports a new version as an upload with a later sequence id
+            server.update(id, "World".getBytes());
+            assertNotified(id, ENTRY_MODIFY);
+
+            server.delete(id);
+            assertNotified(id, ENTRY_DELETE);
+        }
+
+        // changes while stopped are delivered by the saved stream position
+        String id = server.mkdir("0", "dir");
+        try (BoxWatchService watchService = newWatchService()) {
+            assertNotified(id, ENTRY_CREATE);
+        }
+    }
+
+    /** a webhook payload */
+    @Test
+    void test02() throws Exception {
+        try (BoxWatchService watchService = newWatchService()) {
+            watchService.onNotifyMessage("{\"type\":\"webhook_event\",\"trigger\":\"FILE.RENAMED\",\"source\":{\"type\":\"file\",\"id\":\"123\"}}");
+            assertNotified("123", ENTRY_MODIFY);
+        }
+    }
+
+    /** @return events of the next signalled key, which is reset */
+    static List<WatchEvent<?>> take(WatchService watchService, WatchKey expected) throws Exception {
+        WatchKey key = watchService.poll(5, TimeUnit.SECONDS);
+        assertSame(expected, key);
+        List<WatchEvent<?>> events = key.pollEvents();
+        assertTrue(key.reset());
+        return events;
+    }
+
+    /** the standard watch api, a key of a directory is signalled by changes in it */
+    @Test
+    void test03() throws Exception {
+        String dirId = server.mkdir("0", "dir");
+        try (FileSystem fs = FakeBoxExtension.newFileSystem("watch", Map.of());
+             WatchService watchService = fs.newWatchService()) {
+            Path dir = fs.getPath("/dir");
+            WatchKey key = dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+            assertEquals(dir, key.watchable());
+            while (!Files.exists(positionFile)) {
+                Thread.sleep(10);
+            }
+
+            String id = server.mkfile(dirId, "file.txt", "Hello".getBytes());
+            List<WatchEvent<?>> events = take(watchService, key);
+            assertEquals(1, events.size());
+            assertEquals(ENTRY_CREATE, events.get(0).kind());
+            assertEquals(fs.getPath("file.txt"), events.get(0).context());
+
+            server.update(id, "World".getBytes());
+            events = take(watchService, key);
+            assertEquals(ENTRY_MODIFY, events.get(0).kind());
+
+            server.delete(id);
+            events = take(watchService, key);
+            assertEquals(ENTRY_DELETE, events.get(0).kind());
+            assertEquals(fs.getPath("file.txt"), events.get(0).context());
+
+            // not registered
+            server.mkfile("0", "other.txt", "Hello".getBytes());
+            assertNull(watchService.poll(500, TimeUnit.MILLISECONDS));
+
+            key.cancel();
+            assertFalse(key.isValid());
+        }
+    }
+
+    /** a renamed or moved item is deleted by the old name and created by the new one */
+    @Test
+    void test04() throws Exception {
+        String aId = server.mkdir("0", "a");
+        String bId = server.mkdir("0", "b");
+        String id = server.mkfile(aId, "file.txt", "Hello".getBytes());
+        try (FileSystem fs = FakeBoxExtension.newFileSystem("rename", Map.of());
+             WatchService watchService = fs.newWatchService()) {
+            WatchKey a = fs.getPath("/a").register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+            WatchKey b = fs.getPath("/b").register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+            while (!Files.exists(positionFile)) {
+                Thread.sleep(10);
+            }
+
+            server.move(id, aId, "renamed.txt");
+            List<WatchEvent<?>> events = take(watchService, a);
+            assertEquals(2, events.size());
+            assertEquals(ENTRY_DELETE, events.get(0).kind());
+            assertEquals(fs.getPath("file.txt"), events.get(0).context());
+            assertEquals(ENTRY_CREATE, events.get(1).kind());
+            assertEquals(fs.getPath("renamed.txt"), events.get(1).context());
+
+            server.move(id, bId, "renamed.txt");
+            events = take(watchService, a);
+            assertEquals(1, events.size());
+            assertEquals(ENTRY_DELETE, events.get(0).kind());
+            assertEquals(fs.getPath("renamed.txt"), events.get(0).context());
+            events = take(watchService, b);
+            assertEquals(1, events.size());
+            assertEquals(ENTRY_CREATE, events.get(0).kind());
+            assertEquals(fs.getPath("renamed.txt"), events.get(0).context());
+        }
+    }
+
+    /** watch services of a user share one long poll */
+    @Test
+    void test05() throws Exception {
+        BlockingQueue<Map.Entry<String, Kind<?>>> others = new LinkedBlockingQueue<>();
+        try (BoxWatchService watchService = newWatchService();
+             BoxWatchService other = new BoxWatchService(new FakeBoxOAuth2(null).authorize(null))) {
+            other.setNotificationListener((id, kind) -> others.add(Map.entry(id, kind)));
+            while (!Files.exists(positionFile)) {
+                Thread.sleep(10);
+            }
+            server.resetCounts();
+
+            String id = server.mkfile("0", "file.txt", "Hello".getBytes());
+            assertNotified(id, ENTRY_CREATE);
+            assertEquals(Map.entry(id, ENTRY_CREATE), others.poll(1, TimeUnit.SECONDS));
+            assertEquals(1, server.getPeak("GET /realtime"));
+            assertEquals(1, server.getCount("GET /events"));
+        }
+    }
+
+    /** a long poll which does not answer is reconnected at retry_timeout, not backed off */
+    @Test
+    void test06() throws Exception {
+        server.setLongPollTimeout(1000);
+        server.stallLongPolls(1);
+        try (BoxWatchService watchService = newWatchService()) {
+            while (!Files.exists(positionFile)) {
+                Thread.sleep(10);
+            }
+
+            String id = server.mkfile("0", "file.txt", "Hello".getBytes());
+            assertEquals(Map.entry(id, ENTRY_CREATE), notifications.poll(3, TimeUnit.SECONDS));
+            assertTrue(server.getCount("GET /realtime") >= 2);
+        }
+    }
+}
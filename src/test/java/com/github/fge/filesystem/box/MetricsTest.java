@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Set;
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * MetricsTest. (fake box server)
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+class MetricsTest {
+
+    @RegisterExtension
+    static final FakeBoxExtension box = new FakeBoxExtension();
+
+    static FakeBoxServer server;
+
+    @BeforeAll
+    static void setup() throws Exception {
+        server = box.getServer();
+        String dir = server.mkdir("0", "dir");
+        server.mkfile(dir, "file.txt", new byte[1000]);
+    }
+
+    /** published while mounted */
+    @Test
+    void test01() throws Exception {
+        MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName pattern = new ObjectName("com.github.fge.filesystem.box:type=BoxFileSystem,*");
+        Set<ObjectName> before = mbeanServer.queryNames(pattern, null);
+
+        ObjectName name;
+        try (FileSystem fs = FakeBoxExtension.newFileSystem("metrics", Map.of())) {
+            Set<ObjectName> names = mbeanServer.queryNames(pattern, null);
+            names.removeAll(before);
+            assertEquals(1, names.size());
+            name = names.iterator().next();
+            BoxMetricsMXBean metrics = JMX.newMXBeanProxy(mbeanServer, name, BoxMetricsMXBean.class);
+
+            assertEquals(1000, Files.readAllBytes(fs.getPath("/dir/file.txt")).length);
+            assertTrue(Files.exists(fs.getPath("/dir/file.txt")));
+            Files.write(fs.getPath("/dir/new.txt"), new byte[2000]);
+
+            assertTrue(metrics.getCalls().get("getFolderItems") > 0);
+            assertTrue(metrics.getCalls().get("downloadFile") > 0);
+            assertEquals(1, metrics.getCalls().get("uploadFile"));
+            assertEquals(0, metrics.getErrors().get("getFolderItems"));
+            assertTrue(metrics.getLatencyP50().get("getFolderItems") <= metrics.getLatencyMax().get("getFolderItems"));
+            assertEquals(1000, metrics.getBytesIn());
+            assertEquals(2000, metrics.getBytesOut());
+            assertTrue(metrics.getCacheHits() > 0);
+            assertTrue(metrics.getCacheMisses() > 0);
+            assertEquals(0, metrics.getGauges().get("requestsInFlight"));
+
+            metrics.reset();
+            assertTrue(metrics.getCalls().isEmpty());
+        }
+        assertFalse(mbeanServer.isRegistered(name));
+    }
+
+    @Test
+    void test02() throws Exception {
+        BoxMetrics.Histogram histogram = new BoxMetrics.Histogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+        assertEquals(500_000, histogram.percentile(0.5), 500_000 / 8d);
+        assertEquals(990_000, histogram.percentile(0.99), 990_000 / 8d);
+        assertEquals(1_000_000, histogram.max());
+    }
+}
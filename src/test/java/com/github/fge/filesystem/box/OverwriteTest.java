@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+/**
+ * OverwriteTest. (fake box server)
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+class OverwriteTest {
+
+    @RegisterExtension
+    final FakeBoxExtension box = new FakeBoxExtension();
+
+    FakeBoxServer server;
+
+    @BeforeEach
+    void setup() throws Exception {
+        server = box.getServer();
+        server.mkfile("0", "file.txt", "Hello".getBytes());
+    }
+
+    /** unchanged content is not uploaded */
+    @Test
+    void test01() throws Exception {
+        try (FileSystem fs = FakeBoxExtension.newFileSystem("skip", Map.of(
+                BoxFileSystemProvider.ENV_SKIP_UNCHANGED_UPLOAD, true))) {
+            Path path = fs.getPath("/file.txt");
+            Files.exists(path);
+
+            server.resetCounts();
+            Files.write(path, "Hello".getBytes());
+            assertEquals(0, server.getCount("POST /files/content"));
+            assertEquals(0, server.getCount("DELETE /files/{id}"));
+
+            Files.write(path, "World".getBytes());
+            assertEquals(1, server.getCount("POST /files/{id}/content"));
+            assertArrayEquals("World".getBytes(), server.getContent("0", "file.txt"));
+
+            // size and sha1 of the new version
+            Files.write(path, "World".getBytes());
+            assertEquals(1, server.getCount("POST /files/{id}/content"));
+            Files.write(path, "World!".getBytes());
+            assertEquals(2, server.getCount("POST /files/{id}/content"));
+        }
+    }
+
+    /** overwrite is one request and keeps the id */
+    @Test
+    void test02() throws Exception {
+        String id = server.getId("0", "file.txt");
+        try (FileSystem fs = FakeBoxExtension.newFileSystem("version", Map.of())) {
+            Path path = fs.getPath("/file.txt");
+            Files.exists(path);
+
+            server.resetCounts();
+            Files.write(path, "World".getBytes());
+            assertEquals(1, server.getCount("POST /files/{id}/content"));
+            assertEquals(0, server.getCount("POST /files/content"));
+            assertEquals(0, server.getCount("DELETE /files/{id}"));
+            assertEquals(id, server.getId("0", "file.txt"));
+            assertArrayEquals("World".getBytes(), server.getContent("0", "file.txt"));
+
+            // the cached etag is updated
+            Files.write(path, "Hello again".getBytes());
+            assertArrayEquals("Hello again".getBytes(), server.getContent("0", "file.txt"));
+        }
+    }
+
+    /** changed by another since read, written after the conflict is known */
+    @Test
+    void test03() throws Exception {
+        String id = server.getId("0", "file.txt");
+        try (FileSystem fs = FakeBoxExtension.newFileSystem("conflict", Map.of())) {
+            Path path = fs.getPath("/file.txt");
+            Files.exists(path);
+
+            server.update(id, "Another".getBytes());
+            assertThrows(FileSystemException.class, () -> Files.write(path, "World".getBytes()));
+            assertArrayEquals("Another".getBytes(), server.getContent("0", "file.txt"));
+
+            // the conflict refreshed the etag
+            Files.write(path, "World".getBytes());
+            assertArrayEquals("World".getBytes(), server.getContent("0", "file.txt"));
+            assertEquals(id, server.getId("0", "file.txt"));
+        }
+    }
+}
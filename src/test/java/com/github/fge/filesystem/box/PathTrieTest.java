@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.stream.Stream;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * PathTrieTest. (fake box server)
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+class PathTrieTest {
+
+    @RegisterExtension
+    static final FakeBoxExtension box = new FakeBoxExtension();
+
+    static FakeBoxServer server;
+
+    @BeforeAll
+    static void setup() throws Exception {
+        server = box.getServer();
+        String a = server.mkdir("0", "a");
+        String b = server.mkdir(a, "b");
+        String c = server.mkdir(b, "c");
+        String d = server.mkdir(c, "d");
+        server.mkfile(d, "file.txt", "Hello".getBytes());
+    }
+
+    @Test
+    void test01() throws Exception {
+        try (FileSystem fs = FakeBoxExtension.newFileSystem("trie", Map.of())) {
+            // cold: one listing per segment
+            assertTrue(Files.exists(fs.getPath("/a/b/c/d/file.txt")));
+            assertEquals(5, server.getCount("GET /folders/{id}/items"));
+
+            // warm
+            server.resetCounts();
+            assertTrue(Files.exists(fs.getPath("/a/b/c/d/file.txt")));
+            assertEquals(0, server.getCount("GET /folders/{id}/items"));
+
+            // descendants survive a rename of an ancestor
+            Files.move(fs.getPath("/a/b"), fs.getPath("/a/x"));
+            server.resetCounts();
+            assertTrue(Files.exists(fs.getPath("/a/x/c/d/file.txt")));
+            assertTrue(server.getCount("GET /folders/{id}/items") < 3);
+        }
+    }
+
+    /** notifications are applied by the id index without listing */
+    @Test
+    void test02() throws Exception {
+        Path positionFile = Files.createTempDirectory("vavi-nio-file-box-test").resolve("stream_position");
+        System.setProperty("vavi.nio.file.watch.webhook.NotificationProvider.box", ".box.webhook.longpoll");
+        System.setProperty("vavi.nio.file.box.webhook.longpoll.streamPosition", positionFile.toString());
+        try (FileSystem fs = FakeBoxExtension.newFileSystem("notification", Map.of(
+                BoxFileSystemProvider.ENV_USE_SYSTEM_WATCHER, true))) {
+            assertTrue(Files.exists(fs.getPath("/a/b")) || Files.exists(fs.getPath("/a/x")));
+            while (!Files.exists(positionFile)) {
+                Thread.sleep(10);
+            }
+
+            String id = server.mkfile(server.getId("0", "a"), "created.txt", "Hello".getBytes());
+            waitFor(() -> {
+                server.resetCounts();
+                return Files.exists(fs.getPath("/a/created.txt")) && server.getCount("GET /folders/{id}/items") == 0;
+            });
+
+            server.delete(id);
+            waitFor(() -> {
+                server.resetCounts();
+                return Files.notExists(fs.getPath("/a/created.txt")) && server.getCount("GET /folders/{id}/items") == 0;
+            });
+        } finally {
+            System.clearProperty("vavi.nio.file.watch.webhook.NotificationProvider.box");
+            System.clearProperty("vavi.nio.file.box.webhook.longpoll.streamPosition");
+            Files.deleteIfExists(positionFile);
+            Files.deleteIfExists(positionFile.getParent());
+        }
+    }
+
+    /** a storm of notifications is applied by listing the folder once per window */
+    @Test
+    void test03() throws Exception {
+        Path positionFile = Files.createTempDirectory("vavi-nio-file-box-test").resolve("stream_position");
+        System.setProperty("vavi.nio.file.watch.webhook.NotificationProvider.box", ".box.webhook.longpoll");
+        System.setProperty("vavi.nio.file.box.webhook.longpoll.streamPosition", positionFile.toString());
+        try (FileSystem fs = FakeBoxExtension.newFileSystem("coalesce", Map.of(
+                BoxFileSystemProvider.ENV_USE_SYSTEM_WATCHER, true,
+                BoxFileSystemProvider.ENV_NOTIFICATION_WINDOW, 500))) {
+            String storm = server.mkdir("0", "storm");
+            while (!Files.exists(positionFile)) {
+                Thread.sleep(10);
+            }
+            Path dir = fs.getPath("/storm");
+            assertEquals(0, count(dir));
+
+            server.resetCounts();
+            for (int i = 0; i < 1000; i++) {
+                server.mkfile(storm, "file" + i + ".txt", "Hello".getBytes());
+            }
+            waitFor(() -> count(dir) == 1000);
+            assertTrue(server.getCount("GET /folders/{id}/items") <= 5, String.valueOf(server.getCount("GET /folders/{id}/items")));
+            assertEquals(0, server.getCount("GET /files/{id}"));
+        } finally {
+            System.clearProperty("vavi.nio.file.watch.webhook.NotificationProvider.box");
+            System.clearProperty("vavi.nio.file.box.webhook.longpoll.streamPosition");
+            Files.deleteIfExists(positionFile);
+            Files.deleteIfExists(positionFile.getParent());
+        }
+    }
+
+    /** children of a folder evicted from the folder index are dropped from the trie */
+    @Test
+    void test04() throws Exception {
+        for (int i = 0; i < 8; i++) {
+            String folder = server.mkdir("0", "wide" + i);
+            for (int j = 0; j < 4; j++) {
+                server.mkfile(folder, "file" + j + ".txt", "Hello".getBytes());
+            }
+        }
+        Set<ObjectName> before = RateLimitTest.names();
+        try (FileSystem fs = FakeBoxExtension.newFileSystem("bounded", Map.of(
+                BoxFileSystemProvider.ENV_FOLDER_INDEX_SIZE, 2))) {
+            BoxMetricsMXBean metrics = RateLimitTest.metrics(before);
+            for (int i = 0; i < 8; i++) {
+                for (int j = 0; j < 4; j++) {
+                    assertTrue(Files.exists(fs.getPath("/wide" + i, "file" + j + ".txt")));
+                }
+            }
+            assertTrue(metrics.getGauges().get("folderIndexEvictions") > 0);
+            // root, its children and the files of at most two folders
+            long size = metrics.getGauges().get("pathTrieSize");
+            assertTrue(size <= 1 + count(fs.getPath("/")) + 2 * 4, String.valueOf(size));
+
+            // an evicted folder is listed again
+            server.resetCounts();
+            assertTrue(Files.exists(fs.getPath("/wide0/file0.txt")));
+            assertTrue(server.getCount("GET /folders/{id}/items") > 0);
+        }
+    }
+
+    /** an item of a notification is looked up by its type */
+    @Test
+    void test05() throws Exception {
+        Path positionFile = Files.createTempDirectory("vavi-nio-file-box-test").resolve("stream_position");
+        System.setProperty("vavi.nio.file.watch.webhook.NotificationProvider.box", ".box.webhook.longpoll");
+        System.setProperty("vavi.nio.file.box.webhook.longpoll.streamPosition", positionFile.toString());
+        String typed = server.mkdir("0", "typed");
+        try (FileSystem fs = FakeBoxExtension.newFileSystem("type", Map.of(
+                BoxFileSystemProvider.ENV_USE_SYSTEM_WATCHER, true,
+                BoxFileSystemProvider.ENV_NOTIFICATION_WINDOW, 0))) {
+            assertEquals(0, count(fs.getPath("/typed")));
+            while (!Files.exists(positionFile)) {
+                Thread.sleep(10);
+            }
+
+            server.resetCounts();
+            server.mkdir(typed, "folder");
+            waitFor(() -> server.getCount("GET /folders/{id}") > 0);
+            server.mkfile(typed, "file.txt", "Hello".getBytes());
+            waitFor(() -> server.getCount("GET /files/{id}") > 0);
+            assertEquals(1, server.getCount("GET /folders/{id}"));
+            assertEquals(1, server.getCount("GET /files/{id}"));
+            assertTrue(Files.isDirectory(fs.getPath("/typed/folder")));
+        } finally {
+            System.clearProperty("vavi.nio.file.watch.webhook.NotificationProvider.box");
+            System.clearProperty("vavi.nio.file.box.webhook.longpoll.streamPosition");
+            Files.deleteIfExists(positionFile);
+            Files.deleteIfExists(positionFile.getParent());
+        }
+    }
+
+    /** a folder renamed remotely keeps its resolved subtree */
+    @Test
+    void test06() throws Exception {
+        Path positionFile = Files.createTempDirectory("vavi-nio-file-box-test").resolve("stream_position");
+        System.setProperty("vavi.nio.file.watch.webhook.NotificationProvider.box", ".box.webhook.longpoll");
+        System.setProperty("vavi.nio.file.box.webhook.longpoll.streamPosition", positionFile.toString());
+        String remote = server.mkdir("0", "remote");
+        String deep = server.mkdir(server.mkdir(remote, "sub"), "deep");
+        server.mkfile(deep, "file.txt", "Hello".getBytes());
+        try (FileSystem fs = FakeBoxExtension.newFileSystem("remoteRename", Map.of(
+                BoxFileSystemProvider.ENV_USE_SYSTEM_WATCHER, true))) {
+            assertTrue(Files.exists(fs.getPath("/remote/sub/deep/file.txt")));
+            while (!Files.exists(positionFile)) {
+                Thread.sleep(10);
+            }
+
+            server.move(remote, "0", "renamed");
+            waitFor(() -> Files.exists(fs.getPath("/renamed")));
+            server.resetCounts();
+            assertTrue(Files.exists(fs.getPath("/renamed/sub/deep/file.txt")));
+            assertTrue(Files.notExists(fs.getPath("/remote")));
+            assertEquals(0, server.getCount("GET /folders/{id}/items"));
+        } finally {
+            System.clearProperty("vavi.nio.file.watch.webhook.NotificationProvider.box");
+            System.clearProperty("vavi.nio.file.box.webhook.longpoll.streamPosition");
+            Files.deleteIfExists(positionFile);
+            Files.deleteIfExists(positionFile.getParent());
+        }
+    }
+
+    static long count(Path dir) throws Exception {
+        try (Stream<Path> children = Files.list(dir)) {
+            return children.count();
+        }
+    }
+
+    static void waitFor(Callable<Boolean> condition) throws Exception {
+        long until = System.currentTimeMillis() + 5000;
+        while (!condition.call()) {
+            assertTrue(System.currentTimeMillis() < until, "timeout");
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+/**
+ * PrefetchTest. (fake box server)
+ * <p>
+ * a tree of 4 levels, 4 folders and a file in each folder.
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+class PrefetchTest {
+
+    static final int FAN_OUT = 4;
+
+    static final int DEPTH = 4;
+
+    /** including the top */
+    static int folders;
+
+    @RegisterExtension
+    static final FakeBoxExtension box = new FakeBoxExtension();
+
+    static FakeBoxServer server;
+
+    @BeforeAll
+    static void setup() throws Exception {
+        server = box.getServer();
+        mkdirs(server.mkdir("0", "tree"), DEPTH);
+        server.setDelay(20);
+    }
+
+    static void mkdirs(String id, int depth) {
+        folders++;
+        server.mkfile(id, "file.txt", "Hello".getBytes());
+        if (depth > 0) {
+            for (int i = 0; i < FAN_OUT; i++) {
+                mkdirs(server.mkdir(id, "dir" + i), depth - 1);
+            }
+        }
+    }
+
+    /** a walk after a prefetch makes no request */
+    @Test
+    void test01() throws Exception {
+        try (FileSystem fs = FakeBoxExtension.newFileSystem("prefetch", Map.of())) {
+            long t = System.currentTimeMillis();
+            BoxFileSystemProvider.prefetch(fs.getPath("/tree")).get();
+System.err.printf("prefetch: %d folders, %d ms%n", folders, System.currentTimeMillis() - t);
+
+            server.resetCounts();
+            try (Stream<?> paths = Files.walk(fs.getPath("/tree"))) {
+                assertEquals(folders * 2L, paths.count());
+            }
+            assertEquals(0, server.getCount("GET /folders/{id}/items"));
+        }
+    }
+
+    /** prefetched on mount */
+    @Test
+    void test02() throws Exception {
+        server.resetCounts();
+        try (FileSystem fs = FakeBoxExtension.newFileSystem("mount", Map.of(
+                BoxFileSystemProvider.ENV_PREFETCH, "/tree"))) {
+            Files.exists(fs.getPath("/")); // the first access starts it
+            PathTrieTest.waitFor(() -> server.getCount("GET /folders/{id}/items") >= folders + 1); // and the root
+
+            server.resetCounts();
+            try (Stream<?> paths = Files.walk(fs.getPath("/tree"))) {
+                assertEquals(folders * 2L, paths.count());
+            }
+            assertEquals(0, server.getCount("GET /folders/{id}/items"));
+        }
+    }
+}
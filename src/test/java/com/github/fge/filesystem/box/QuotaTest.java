@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.nio.file.FileStore;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * QuotaTest. (fake box server)
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+class QuotaTest {
+
+    @RegisterExtension
+    static final FakeBoxExtension box = new FakeBoxExtension();
+
+    static FakeBoxServer server;
+
+    @BeforeAll
+    static void setup() throws Exception {
+        server = box.getServer();
+        server.mkdir("0", "dir");
+    }
+
+    /** mounting costs no request, the user is fetched once at the first use */
+    @Test
+    void test01() throws Exception {
+        server.resetCounts();
+        try (FileSystem fs = FakeBoxExtension.newFileSystem("lazy", Map.of())) {
+            assertEquals(0, server.getCount("GET /users/me"));
+
+            assertTrue(Files.exists(fs.getPath("/dir")));
+            FileStore store = fs.getFileStores().iterator().next();
+            assertTrue(store.getTotalSpace() > 0);
+            assertTrue(store.getTotalSpace() > 0);
+            assertEquals(1, server.getCount("GET /users/me"));
+        }
+    }
+
+    /** the quota is reused within the ttl, adjusted locally and refreshed in the background */
+    @Test
+    void test02() throws Exception {
+        try (FileSystem fs = FakeBoxExtension.newFileSystem("quota", Map.of(BoxFileSystemProvider.ENV_QUOTA_TTL, 500))) {
+            FileStore store = fs.getFileStores().iterator().next();
+            server.resetCounts();
+            long usable = store.getUsableSpace();
+            for (int i = 0; i < 100; i++) {
+                assertEquals(usable, store.getUsableSpace());
+            }
+            assertEquals(usable, store.getUnallocatedSpace());
+            assertEquals(1, server.getCount("GET /users/me"));
+
+            Path file = fs.getPath("/quota.bin");
+            Files.write(file, new byte[1000]);
+            assertEquals(usable - 1000, store.getUsableSpace());
+            Files.delete(file);
+            assertEquals(usable, store.getUsableSpace());
+            assertEquals(1, server.getCount("GET /users/me"));
+
+            Thread.sleep(600);
+            assertEquals(usable, store.getUsableSpace()); // expired one, refreshed in the background
+            PathTrieTest.waitFor(() -> server.getCount("GET /users/me") == 2);
+        }
+    }
+}
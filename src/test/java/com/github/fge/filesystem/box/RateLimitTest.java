@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.box.sdkgen.box.errors.BoxAPIError;
+import com.box.sdkgen.client.BoxClient;
+import com.github.fge.filesystem.box.BoxRequestScheduler.Priority;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * RateLimitTest. (fake box server)
+ * <p>
+ * a parallel walk against a server which answers 429 beyond 4 requests in flight,
+ * and the scheduler alone.
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+class RateLimitTest {
+
+    static final int FOLDERS = 16;
+
+    static final int FILES = 16;
+
+    @RegisterExtension
+    static final FakeBoxExtension box = new FakeBoxExtension();
+
+    static FakeBoxServer server;
+
+    @BeforeAll
+    static void setup() throws Exception {
+        server = box.getServer();
+        for (int i = 0; i < FOLDERS; i++) {
+            String folder = server.mkdir("0", "folder" + i);
+            for (int j = 0; j < FILES; j++) {
+                server.mkfile(folder, "file" + j + ".txt", ("Hello" + i + "_" + j).getBytes());
+            }
+        }
+    }
+
+    /** @return the metrics of the file system mounted after {@link #names()} returned {@code before} */
+    static BoxMetricsMXBean metrics(Set<ObjectName> before) throws Exception {
+        MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        Set<ObjectName> names = mbeanServer.queryNames(new ObjectName("com.github.fge.filesystem.box:type=BoxFileSystem,*"), null);
+        names.removeAll(before);
+        assertEquals(1, names.size());
+        return JMX.newMXBeanProxy(mbeanServer, names.iterator().next(), BoxMetricsMXBean.class);
+    }
+
+    /** @return registered file system metrics */
+    static Set<ObjectName> names() throws Exception {
+        return ManagementFactory.getPlatformMBeanServer().queryNames(new ObjectName("com.github.fge.filesystem.box:type=BoxFileSystem,*"), null);
+    }
+
+    /** every request succeeds in the end, throttled ones are retried after Retry-After */
+    @Test
+    void test01() throws Exception {
+        server.setDelay(20);
+        server.setConcurrencyLimit(4);
+        Set<ObjectName> before = names();
+        try (FileSystem fs = FakeBoxExtension.newFileSystem("throttled", Map.of(
+                BoxFileSystemProvider.ENV_REQUEST_RATE, 0,
+                BoxFileSystemProvider.ENV_REQUEST_CONCURRENCY, 16))) {
+            BoxMetricsMXBean metrics = metrics(before);
+            server.resetCounts();
+
+            AtomicInteger read = new AtomicInteger();
+            IntStream.range(0, FOLDERS).parallel().forEach(i -> {
+                for (int j = 0; j < FILES; j++) {
+                    try {
+                        assertArrayEquals(("Hello" + i + "_" + j).getBytes(), Files.readAllBytes(fs.getPath("/folder" + i, "file" + j + ".txt")));
+                        read.incrementAndGet();
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+            assertEquals(FOLDERS * FILES, read.get());
+System.err.println("throttled: " + server.getCount("429"));
+            // the sdk does not retry by itself, every 429 reaches the scheduler
+            assertTrue(server.getCount("429") > 0);
+            assertEquals(server.getCount("429"), metrics.getGauges().get("requestsThrottled"));
+        } finally {
+            server.setConcurrencyLimit(0);
+            server.setDelay(0);
+        }
+    }
+
+    /** the token bucket spreads requests beyond the burst */
+    @Test
+    void test02() throws Exception {
+        try (FileSystem fs = FakeBoxExtension.newFileSystem("rate", Map.of(
+                BoxFileSystemProvider.ENV_REQUEST_RATE, 5))) {
+            Files.exists(fs.getPath("/folder0")); // the root is listed
+            long t = System.currentTimeMillis();
+            IntStream.range(0, FOLDERS).parallel().forEach(i -> {
+                try {
+                    assertTrue(Files.exists(fs.getPath("/folder" + i, "file0.txt")));
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            long elapsed = System.currentTimeMillis() - t;
+System.err.println("rate: " + FOLDERS + " listings, " + elapsed + " ms");
+            // a burst of 10 requests, the rest come at 5 per second
+            assertTrue(elapsed >= 1000, String.valueOf(elapsed));
+        }
+    }
+
+    /** metadata requests waiting are started before content ones */
+    @Test
+    void test03() throws Exception {
+        BoxRequestScheduler scheduler = new BoxRequestScheduler(0, 1, new BoxMetrics());
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Priority> started = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            futures.add(executor.submit(() -> scheduler.call(Priority.CONTENT, "blocker", () -> {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return null;
+            })));
+            blocked.await();
+            for (int i = 0; i < 8; i++) {
+                Priority priority = i < 4 ? Priority.CONTENT : Priority.METADATA;
+                futures.add(executor.submit(() -> scheduler.call(priority, "queued", () -> started.add(priority))));
+            }
+            while (scheduler.getQueueDepth() < 8) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(List.of(Priority.METADATA, Priority.METADATA, Priority.METADATA, Priority.METADATA,
+                Priority.CONTENT, Priority.CONTENT, Priority.CONTENT, Priority.CONTENT), started);
+    }
+    /** the concurrency limit is halved by a 429 */
+    @Test
+    void test04() throws Exception {
+        BoxClient client = BoxRequestScheduler.withRetryStrategy(new FakeBoxOAuth2(null).authorize(null));
+        BoxRequestScheduler scheduler = new BoxRequestScheduler(0, 16, new BoxMetrics());
+        assertEquals(16, scheduler.getLimit());
+        server.setErrorRate(1, 429);
+        server.setRetryAfter(0);
+        try {
+            BoxAPIError e = assertThrows(BoxAPIError.class, () -> scheduler.callOnce(Priority.METADATA, "getFolderById", () -> client.folders.getFolderById("0")));
+            assertEquals(429, e.getResponseInfo().getStatusCode());
+        } finally {
+            server.setErrorRate(0);
+            server.setRetryAfter(1);
+        }
+        assertEquals(1, scheduler.getThrottledCount());
+        assertEquals(8, scheduler.getLimit());
+        assertEquals(0, scheduler.getInFlight());
+    }
+
+    /** Retry-After of one request pauses the others */
+    @Test
+    void test05() throws Exception {
+        BoxClient client = BoxRequestScheduler.withRetryStrategy(new FakeBoxOAuth2(null).authorize(null));
+        BoxRequestScheduler scheduler = new BoxRequestScheduler(0, 16, new BoxMetrics());
+        server.setErrorRate(1, 429);
+        server.setRetryAfter(1);
+        try {
+            assertThrows(BoxAPIError.class, () -> scheduler.callOnce(Priority.METADATA, "getFolderById", () -> client.folders.getFolderById("0")));
+        } finally {
+            server.setErrorRate(0);
+        }
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            long t = System.nanoTime();
+            Future<Long> other = executor.submit(() -> scheduler.call(Priority.METADATA, "noop", () -> System.nanoTime()));
+            long elapsed = (other.get() - t) / 1_000_000;
+System.err.println("paused: " + elapsed + " ms");
+            assertTrue(elapsed >= 900, String.valueOf(elapsed));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /** throttles of requests started in the same window halve the limit once */
+    @Test
+    void test06() throws Exception {
+        BoxClient client = BoxRequestScheduler.withRetryStrategy(new FakeBoxOAuth2(null).authorize(null));
+        BoxRequestScheduler scheduler = new BoxRequestScheduler(0, 16, new BoxMetrics());
+        server.setErrorRate(1, 429);
+        server.setRetryAfter(0);
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            CyclicBarrier started = new CyclicBarrier(4);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> scheduler.callOnce(Priority.METADATA, "getFolderById", () -> {
+                    try {
+                        started.await();
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return client.folders.getFolderById("0");
+                })));
+            }
+            for (Future<?> future : futures) {
+                ExecutionException e = assertThrows(ExecutionException.class, future::get);
+                assertTrue(e.getCause() instanceof BoxAPIError, String.valueOf(e.getCause()));
+            }
+        } finally {
+            executor.shutdownNow();
+            server.setErrorRate(0);
+            server.setRetryAfter(1);
+        }
+        assertEquals(4, scheduler.getThrottledCount());
+        assertEquals(8, scheduler.getLimit());
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+
+/**
+ * RecursiveDeleteTest. (fake box server)
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+class RecursiveDeleteTest {
+
+    @RegisterExtension
+    final FakeBoxExtension box = new FakeBoxExtension();
+
+    FakeBoxServer server;
+
+    @BeforeEach
+    void setup() throws Exception {
+        server = box.getServer();
+        String tree = server.mkdir("0", "tree");
+        for (int i = 0; i < 10; i++) {
+            String dir = server.mkdir(tree, "dir" + i);
+            for (int j = 0; j < 10; j++) {
+                server.mkfile(dir, "file" + j + ".txt", "Hello".getBytes());
+            }
+        }
+    }
+
+    /** one request, the cached subtree is dropped */
+    @Test
+    void test01() throws Exception {
+        try (FileSystem fs = FakeBoxExtension.newFileSystem("delete", Map.of())) {
+            try (Stream<?> paths = Files.walk(fs.getPath("/tree"))) {
+                assertEquals(1 + 10 + 100, paths.count());
+            }
+
+            server.resetCounts();
+            BoxFileSystemProvider.deleteRecursively(fs.getPath("/tree"));
+            assertEquals(1, server.getCount("DELETE /folders/{id}"));
+            assertEquals(0, server.getCount("DELETE /files/{id}"));
+            assertNull(server.getId("0", "tree"));
+
+            assertFalse(Files.exists(fs.getPath("/tree")));
+            assertFalse(Files.exists(fs.getPath("/tree/dir0/file0.txt")));
+            assertEquals(0, server.getCount("GET /folders/{id}/items"));
+        }
+    }
+}
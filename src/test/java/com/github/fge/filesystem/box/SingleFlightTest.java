@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * SingleFlightTest. (fake box server)
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+class SingleFlightTest {
+
+    static final int ITEMS = 10_000;
+
+    @RegisterExtension
+    static final FakeBoxExtension box = new FakeBoxExtension();
+
+    static FakeBoxServer server;
+
+    @BeforeAll
+    static void setup() throws Exception {
+        server = box.getServer();
+        String big = server.mkdir("0", "big");
+        byte[] content = "Hello".getBytes();
+        for (int i = 0; i < ITEMS; i++) {
+            server.mkfile(big, String.format("file%06d.txt", i), content);
+        }
+    }
+
+    /** concurrent lookups in a cold folder share one listing */
+    @Test
+    void test01() throws Exception {
+        try (FileSystem fs = FakeBoxExtension.newFileSystem("flight", Map.of())) {
+            Files.exists(fs.getPath("/big"));
+            server.resetCounts();
+
+            int threads = 16;
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<Boolean>> futures = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    Path path = fs.getPath("/big", String.format("file%06d.txt", i));
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        return Files.exists(path);
+                    }));
+                }
+                start.countDown();
+                for (Future<Boolean> future : futures) {
+                    assertTrue(future.get());
+                }
+            } finally {
+                executor.shutdown();
+            }
+
+            assertEquals(ITEMS / 1000, server.getCount("GET /folders/{id}/items"));
+        }
+    }
+}
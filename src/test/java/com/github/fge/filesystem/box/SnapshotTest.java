@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * SnapshotTest. (fake box server)
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+class SnapshotTest {
+
+    @RegisterExtension
+    final FakeBoxExtension box = new FakeBoxExtension();
+
+    FakeBoxServer server;
+
+    Path snapshot;
+
+    @BeforeEach
+    void setup() throws Exception {
+        server = box.getServer();
+        snapshot = Files.createTempDirectory("vavi-nio-file-box-test").resolve("snapshot.gz");
+    }
+
+    @AfterEach
+    void teardown() throws Exception {
+        Files.deleteIfExists(snapshot);
+        Files.deleteIfExists(snapshot.getParent());
+    }
+
+    @Test
+    void test01() throws Exception {
+        String a = server.mkdir("0", "a");
+        String b = server.mkdir(a, "b");
+        for (int i = 0; i < 10; i++) {
+            server.mkfile(b, "file" + i + ".txt", "Hello".getBytes());
+        }
+        String c = server.mkdir("0", "c");
+        String gone = server.mkfile(c, "gone.txt", "Hello".getBytes());
+
+        Map<String, Object> env = Map.of(BoxFileSystemProvider.ENV_METADATA_SNAPSHOT, snapshot);
+        try (FileSystem fs = FakeBoxExtension.newFileSystem("snapshot1", env)) {
+            assertEquals(10, PathTrieTest.count(fs.getPath("/a/b")));
+            assertEquals(1, PathTrieTest.count(fs.getPath("/c")));
+        }
+        assertTrue(Files.exists(snapshot));
+
+        // changed while not mounted
+        server.mkfile(c, "new.txt", "Hello".getBytes());
+        server.delete(gone);
+
+        server.resetCounts();
+        try (FileSystem fs = FakeBoxExtension.newFileSystem("snapshot2", env)) {
+            // warm
+            assertEquals(10, PathTrieTest.count(fs.getPath("/a/b")));
+            assertTrue(Files.exists(fs.getPath("/a/b/file9.txt")));
+            // reconciled by one listing of the changed folder
+            assertTrue(Files.exists(fs.getPath("/c/new.txt")));
+            assertFalse(Files.exists(fs.getPath("/c/gone.txt")));
+            assertEquals(1, PathTrieTest.count(fs.getPath("/c")));
+            assertEquals(1, server.getCount("GET /folders/{id}/items"));
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * SoakTest. (fake box server)
+ * <p>
+ * threads run a mix of stat, list, read, write, rename, mkdir and copy against a server with box like
+ * latency and injected errors, then throughput and tail latency per operation are reported.
+ * by default a short run with errors which are retried except for uploads, for a real soak e.g.
+ * <pre>
+ * mvn test -Dtest=SoakTest -Dsoak.seconds=600 -Dsoak.threads=32 \
+ *   -Dsoak.latency.median=200 -Dsoak.latency.p99=800 \
+ *   -Dsoak.errorRate=0.01 -Dsoak.errorStatuses=429,500,503 -Dsoak.retryAfter=1 \
+ *   -Dsoak.bandwidth=1000000
+ * </pre>
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+class SoakTest {
+
+    static final int SECONDS = Integer.getInteger("soak.seconds", 3);
+
+    static final int THREADS = Integer.getInteger("soak.threads", 8);
+
+    static final long LATENCY_MEDIAN = Long.getLong("soak.latency.median", 10);
+
+    static final long LATENCY_P99 = Long.getLong("soak.latency.p99", 40);
+
+    static final double ERROR_RATE = Double.parseDouble(System.getProperty("soak.errorRate", "0.02"));
+
+    /** only retried ones by default */
+    static final int[] ERROR_STATUSES = parseInts(System.getProperty("soak.errorStatuses", "429,503"));
+
+    static final int RETRY_AFTER = Integer.getInteger("soak.retryAfter", 0);
+
+    static final long BANDWIDTH = Long.getLong("soak.bandwidth", 0);
+
+    static final int FOLDERS = 8;
+
+    static final int FILES = 32;
+
+    @RegisterExtension
+    static final FakeBoxExtension box = new FakeBoxExtension();
+
+    static FakeBoxServer server;
+
+    static final Map<String, byte[]> contents = new TreeMap<>();
+
+    static final List<String> paths = new ArrayList<>();
+
+    @BeforeAll
+    static void setup() throws Exception {
+        server = box.getServer();
+        Random random = new Random(0);
+        for (int i = 0; i < FOLDERS; i++) {
+            String folder = server.mkdir("0", "folder" + i);
+            for (int j = 0; j < FILES; j++) {
+                byte[] content = new byte[1024 + random.nextInt(64 * 1024)];
+                random.nextBytes(content);
+                server.mkfile(folder, "file" + j + ".bin", content);
+                contents.put("/folder" + i + "/file" + j + ".bin", content);
+            }
+        }
+        paths.addAll(contents.keySet());
+        server.mkdir("0", "work");
+    }
+
+    private static int[] parseInts(String value) {
+        return value.isBlank() ? new int[0] : Arrays.stream(value.split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+    }
+
+    /** of an operation */
+    static class Stat {
+        final LongAdder count = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final BoxMetrics.Histogram latency = new BoxMetrics.Histogram();
+    }
+
+    @FunctionalInterface
+    interface Operation {
+        void run(FileSystem fs, int thread, int n) throws Exception;
+    }
+
+    static final Map<String, Operation> operations = new TreeMap<>(Map.of(
+        "stat", (fs, thread, n) -> {
+            String path = pick();
+            assertEquals(contents.get(path).length, Files.readAttributes(fs.getPath(path), BasicFileAttributes.class).size());
+        },
+        "list", (fs, thread, n) -> {
+            int count = 0;
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(fs.getPath("/folder" + ThreadLocalRandom.current().nextInt(FOLDERS)))) {
+                for (Path ignored : stream) {
+                    count++;
+                }
+            }
+            assertEquals(FILES, count);
+        },
+        "read", (fs, thread, n) -> {
+            String path = pick();
+            assertArrayEquals(contents.get(path), Files.readAllBytes(fs.getPath(path)));
+        },
+        "write", (fs, thread, n) -> {
+            byte[] content = contents.get(pick());
+            Path path = fs.getPath("/work/thread" + thread + ".bin");
+            Files.write(path, content);
+            assertEquals(content.length, Files.size(path));
+        },
+        "rename", (fs, thread, n) -> {
+            Path a = fs.getPath("/work/thread" + thread + ".bin");
+            Path b = fs.getPath("/work/thread" + thread + ".renamed");
+            if (Files.exists(a)) {
+                Files.move(a, b);
+                Files.move(b, a);
+            }
+        },
+        "mkdir", (fs, thread, n) -> {
+            Path dir = fs.getPath("/work/dir" + thread + "_" + n);
+            Files.createDirectory(dir);
+            assertTrue(Files.isDirectory(dir));
+        },
+        "copy", (fs, thread, n) -> {
+            String source = pick();
+            Path dir = Files.createDirectory(fs.getPath("/work/copy" + thread + "_" + n));
+            Path target = Files.copy(fs.getPath(source), dir.resolve(fs.getPath(source).getFileName().toString()));
+            assertEquals(contents.get(source).length, Files.size(target));
+        }
+    ));
+
+    private static String pick() {
+        return paths.get(ThreadLocalRandom.current().nextInt(paths.size()));
+    }
+
+    @Test
+    void test01() throws Exception {
+        server.setLatency(FakeBoxServer.logNormal(LATENCY_MEDIAN, LATENCY_P99));
+        server.setErrorRate(ERROR_RATE, ERROR_STATUSES);
+        server.setRetryAfter(RETRY_AFTER);
+        server.setBandwidth(BANDWIDTH);
+
+        Map<String, Stat> stats = new TreeMap<>();
+        operations.keySet().forEach(k -> stats.put(k, new Stat()));
+        List<String> names = new ArrayList<>(operations.keySet());
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long t = System.nanoTime();
+        long end = t + SECONDS * 1_000_000_000L;
+        try (FileSystem fs = FakeBoxExtension.newFileSystem("soak", Map.of())) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                int thread = i;
+                futures.add(executor.submit(() -> {
+                    for (int n = 0; System.nanoTime() < end; n++) {
+                        String name = names.get(ThreadLocalRandom.current().nextInt(names.size()));
+                        Stat stat = stats.get(name);
+                        long s = System.nanoTime();
+                        try {
+                            operations.get(name).run(fs, thread, n);
+                        } catch (Throwable e) {
+                            stat.failures.increment();
+System.err.println(name + ": " + e);
+                        } finally {
+                            stat.latency.record((System.nanoTime() - s) / 1000);
+                            stat.count.increment();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+            server.setLatency(() -> 0);
+            server.setErrorRate(0);
+            server.setBandwidth(0);
+        }
+        double elapsed = (System.nanoTime() - t) / 1e9;
+
+        long total = 0;
+        long failures = 0;
+        System.err.printf("soak: %d threads, %.1f s, latency median %d ms, p99 %d ms, error rate %.3f%n", THREADS, elapsed, LATENCY_MEDIAN, LATENCY_P99, ERROR_RATE);
+        System.err.printf("%-8s %8s %8s %10s %10s %10s %10s%n", "op", "count", "failed", "ops/s", "p50 ms", "p99 ms", "max ms");
+        for (Map.Entry<String, Stat> e : stats.entrySet()) {
+            Stat stat = e.getValue();
+            System.err.printf("%-8s %8d %8d %10.1f %10.1f %10.1f %10.1f%n", e.getKey(), stat.count.sum(), stat.failures.sum(), stat.count.sum() / elapsed,
+                    stat.latency.percentile(0.5) / 1000d, stat.latency.percentile(0.99) / 1000d, stat.latency.max() / 1000d);
+            total += stat.count.sum();
+            failures += stat.failures.sum();
+        }
+        System.err.printf("total: %d ops, %.1f ops/s, failed: %d, injected: 429 x %d, 500 x %d, 503 x %d%n", total, total / elapsed, failures,
+                server.getCount("429"), server.getCount("500"), server.getCount("503"));
+
+        assertTrue(total > 0);
+        // uploads consume the stream, so they are not retried
+        if (Arrays.stream(ERROR_STATUSES).allMatch(s -> s == 429 || s == 503)) {
+            stats.entrySet().stream().filter(e -> !e.getKey().equals("write")).forEach(e -> assertEquals(0, e.getValue().failures.sum(), e.getKey()));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.box.sdkgen.schemas.item.Item;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * StreamingUploadTest.
+ * <p>
+ * {@link BoxStreamingUploadOutputStream} against a request body which is not read.
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+class StreamingUploadTest {
+
+    static final int CHUNK_SIZE = 1024;
+
+    static final int CHUNKS = 4;
+
+    static final int SIZE = 64 * 1024;
+
+    /** a writer is held to the queued chunks and the one being filled while the body is stalled */
+    @Test
+    void test01() throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            CountDownLatch stalled = new CountDownLatch(1);
+            AtomicLong received = new AtomicLong();
+            OutputStream os = new BoxStreamingUploadOutputStream(executor, CHUNK_SIZE, CHUNKS) {
+                @Override
+                protected Item upload(InputStream is) throws IOException {
+                    try {
+                        stalled.await();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    received.set(is.transferTo(OutputStream.nullOutputStream()));
+                    return null;
+                }
+
+                @Override
+                protected void onUploaded(Item entry) {
+                }
+            };
+
+            AtomicLong written = new AtomicLong();
+            Future<?> writer = executor.submit(() -> {
+                byte[] bytes = new byte[256];
+                for (int i = 0; i < SIZE; i += bytes.length) {
+                    os.write(bytes);
+                    written.addAndGet(bytes.length);
+                }
+                os.close();
+                return null;
+            });
+
+            Thread.sleep(500);
+            assertTrue(written.get() <= (CHUNKS + 1) * CHUNK_SIZE, String.valueOf(written.get()));
+
+            stalled.countDown();
+            writer.get();
+            assertEquals(SIZE, received.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
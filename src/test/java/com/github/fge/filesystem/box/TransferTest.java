@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package com.github.fge.filesystem.box;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * TransferTest. (fake box server)
+ * <p>
+ * uploads and downloads of large files, checked by the requests the server received.
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (umjammer)
+ * @version 0.00 2026/10/17 umjammer initial version <br>
+ */
+class TransferTest {
+
+    /** a single request below the threshold, parts in parallel above it */
+    @ParameterizedTest
+    @CsvSource({
+        "134217728, 1", // single request
+        "20971520, 1",  // chunked, sequential parts
+        "20971520, 4",  // chunked, parallel parts
+    })
+    void test01(long threshold, int concurrency) throws Exception {
+        byte[] bytes = new byte[64 * 1024 * 1024];
+        new Random(0).nextBytes(bytes);
+
+        try (FakeBoxExtension box = FakeBoxExtension.open()) {
+            FakeBoxServer server = box.getServer();
+            server.setDelay(50);
+
+            try (FileSystem fs = FakeBoxExtension.newFileSystem("upload" + threshold + "_" + concurrency, Map.of(
+                    BoxFileSystemProvider.ENV_CHUNKED_UPLOAD_THRESHOLD, threshold,
+                    BoxFileSystemProvider.ENV_UPLOAD_CONCURRENCY, concurrency))) {
+                server.resetCounts();
+
+                Files.write(fs.getPath("/large.bin"), bytes);
+
+                assertArrayEquals(bytes, server.getContent("0", "large.bin"));
+                if (bytes.length < threshold) {
+                    assertEquals(1, server.getCount("POST /files/content"));
+                    assertEquals(0, server.getCount("POST /files/upload_sessions"));
+                } else {
+                    assertEquals(0, server.getCount("POST /files/content"));
+                    assertEquals(1, server.getCount("POST /files/upload_sessions"));
+                    assertEquals(bytes.length / FakeBoxServer.PART_SIZE, server.getCount("PUT /files/upload_sessions/{id}"));
+                    assertEquals(1, server.getCount("POST /files/upload_sessions/{id}/commit"));
+                    // parts held in memory at once
+                    int peak = server.getPeak("PUT /files/upload_sessions/{id}");
+                    assertTrue(peak <= concurrency, String.valueOf(peak));
+                    assertTrue(concurrency == 1 || peak > 1, String.valueOf(peak));
+                }
+            }
+        }
+    }
+
+    /** streaming upload, one request whatever the size */
+    @Test
+    void test02() throws Exception {
+        byte[] bytes = new byte[64 * 1024 * 1024];
+        new Random(0).nextBytes(bytes);
+
+        try (FakeBoxExtension box = FakeBoxExtension.open()) {
+            FakeBoxServer server = box.getServer();
+
+            try (FileSystem fs = FakeBoxExtension.newFileSystem("streaming", Map.of(
+                    BoxFileSystemProvider.ENV_STREAMING_UPLOAD, true))) {
+                server.resetCounts();
+
+                try (OutputStream os = Files.newOutputStream(fs.getPath("/large.bin"))) {
+                    for (int i = 0; i < bytes.length; i += 8192) {
+                        os.write(bytes, i, 8192);
+                    }
+                }
+
+                assertArrayEquals(bytes, server.getContent("0", "large.bin"));
+                assertEquals(1, server.getCount("POST /files/content"));
+                assertEquals(0, server.getCount("POST /files/upload_sessions"));
+            }
+        }
+    }
+
+    /** ranges above the threshold, fetched in parallel up to the concurrency */
+    @ParameterizedTest
+    @CsvSource({
+        "134217728, 1", // single request
+        "8388608, 2",   // 4 ranges, 2 at once
+        "8388608, 4",   // 4 ranges, 4 at once
+    })
+    void test03(long threshold, int concurrency) throws Exception {
+        byte[] bytes = new byte[32 * 1024 * 1024];
+        new Random(0).nextBytes(bytes);
+
+        try (FakeBoxExtension box = FakeBoxExtension.open()) {
+            FakeBoxServer server = box.getServer();
+            server.mkfile("0", "large.bin", bytes);
+            server.setBandwidth(8 * 1024 * 1024);
+
+            try (FileSystem fs = FakeBoxExtension.newFileSystem("download" + threshold + "_" + concurrency, Map.of(
+                    BoxFileSystemProvider.ENV_RANGED_DOWNLOAD_THRESHOLD, threshold,
+                    BoxFileSystemProvider.ENV_DOWNLOAD_CHUNK_SIZE, 8 * 1024 * 1024,
+                    BoxFileSystemProvider.ENV_DOWNLOAD_CONCURRENCY, concurrency))) {
+                Files.exists(fs.getPath("/large.bin"));
+                server.resetCounts();
+
+                assertArrayEquals(bytes, Files.readAllBytes(fs.getPath("/large.bin")));
+
+                int peak = server.getPeak("GET /files/{id}/content");
+                if (bytes.length < threshold) {
+                    assertEquals(1, server.getCount("GET /files/{id}/content"));
+                } else {
+                    assertEquals(bytes.length / (8 * 1024 * 1024), server.getCount("GET /files/{id}/content"));
+                    assertTrue(peak <= concurrency, String.valueOf(peak));
+                    assertTrue(concurrency == 1 || peak > 1, String.valueOf(peak));
+                }
+            }
+        }
+    }
+
+    /** a slow reader holds the current chunk and at most {@code concurrency} chunks ahead */
+    @Test
+    void test04() throws Exception {
+        byte[] bytes = new byte[8 * 1024 * 1024];
+        new Random(0).nextBytes(bytes);
+
+        try (FakeBoxExtension box = FakeBoxExtension.open()) {
+            FakeBoxServer server = box.getServer();
+            server.mkfile("0", "large.bin", bytes);
+
+            try (FileSystem fs = FakeBoxExtension.newFileSystem("readahead", Map.of(
+                    BoxFileSystemProvider.ENV_RANGED_DOWNLOAD_THRESHOLD, 1024 * 1024,
+                    BoxFileSystemProvider.ENV_DOWNLOAD_CHUNK_SIZE, 512 * 1024,
+                    BoxFileSystemProvider.ENV_DOWNLOAD_CONCURRENCY, 2))) {
+                Files.exists(fs.getPath("/large.bin"));
+                server.resetCounts();
+
+                try (InputStream is = Files.newInputStream(fs.getPath("/large.bin"))) {
+                    assertEquals(bytes[0] & 0xff, is.read());
+                    Thread.sleep(500);
+                    assertEquals(1 + 2, server.getCount("GET /files/{id}/content"));
+
+                    byte[] rest = is.readAllBytes();
+                    assertArrayEquals(Arrays.copyOfRange(bytes, 1, bytes.length), rest);
+                }
+                assertEquals(bytes.length / (512 * 1024), server.getCount("GET /files/{id}/content"));
+            }
+        }
+    }
+
+    /** a seek costs one range request */
+    @Test
+    void test05() throws Exception {
+        byte[] bytes = new byte[32 * 1024 * 1024];
+        new Random(0).nextBytes(bytes);
+
+        try (FakeBoxExtension box = FakeBoxExtension.open()) {
+            FakeBoxServer server = box.getServer();
+            server.mkfile("0", "large.bin", bytes);
+
+            try (FileSystem fs = FakeBoxExtension.newFileSystem("channel", Map.of());
+                 SeekableByteChannel channel = Files.newByteChannel(fs.getPath("/large.bin"))) {
+
+                assertEquals(bytes.length, channel.size());
+
+                server.resetCounts();
+                ByteBuffer buffer = ByteBuffer.allocate(100);
+                channel.position(bytes.length - 100);
+                assertEquals(100, channel.read(buffer));
+                assertArrayEquals(Arrays.copyOfRange(bytes, bytes.length - 100, bytes.length), buffer.array());
+                assertEquals(-1, channel.read(buffer.clear()));
+                assertEquals(1, server.getCount("GET /files/{id}/content"));
+
+                // cached block
+                channel.position(bytes.length - 200);
+                buffer.clear();
+                assertEquals(100, channel.read(buffer));
+                assertArrayEquals(Arrays.copyOfRange(bytes, bytes.length - 200, bytes.length - 100), buffer.array());
+                assertEquals(1, server.getCount("GET /files/{id}/content"));
+            }
+        }
+    }
+
+    /** the second read is served by the on-disk cache, also after remount. the cache is of the owner only */
+    @Test
+    void test06() throws Exception {
+        byte[] bytes = new byte[8 * 1024 * 1024 + 100];
+        new Random(0).nextBytes(bytes);
+        Path dir = Files.createTempDirectory("vavi-nio-file-box-test");
+
+        try (FakeBoxExtension box = FakeBoxExtension.open()) {
+            FakeBoxServer server = box.getServer();
+            server.mkfile("0", "large.bin", bytes);
+            Map<String, Object> env = Map.of(
+                    BoxFileSystemProvider.ENV_BLOCK_CACHE_SIZE, 64 * 1024 * 1024,
+                    BoxFileSystemProvider.ENV_BLOCK_CACHE_DIR, dir.resolve("blocks"));
+
+            try (FileSystem fs = FakeBoxExtension.newFileSystem("cache1", env)) {
+                if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+                    assertEquals(PosixFilePermissions.fromString("rwx------"), Files.getPosixFilePermissions(dir.resolve("blocks")));
+                }
+                assertArrayEquals(bytes, Files.readAllBytes(fs.getPath("/large.bin")));
+                assertTrue(server.getCount("GET /files/{id}/content") > 0);
+
+                server.resetCounts();
+                assertArrayEquals(bytes, Files.readAllBytes(fs.getPath("/large.bin")));
+                assertEquals(0, server.getCount("GET /files/{id}/content"));
+            }
+
+            try (FileSystem fs = FakeBoxExtension.newFileSystem("cache2", env)) {
+                server.resetCounts();
+                assertArrayEquals(bytes, Files.readAllBytes(fs.getPath("/large.bin")));
+                assertEquals(0, server.getCount("GET /files/{id}/content"));
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    /** ranges keep reading the version which was open even if the file is updated meanwhile */
+    @Test
+    void test07() throws Exception {
+        byte[] bytes = new byte[8 * 1024 * 1024];
+        new Random(0).nextBytes(bytes);
+
+        try (FakeBoxExtension box = FakeBoxExtension.open()) {
+            FakeBoxServer server = box.getServer();
+            String id = server.mkfile("0", "large.bin", bytes);
+
+            try (FileSystem fs = FakeBoxExtension.newFileSystem("pinned", Map.of(
+                    BoxFileSystemProvider.ENV_RANGED_DOWNLOAD_THRESHOLD, 1024 * 1024,
+                    BoxFileSystemProvider.ENV_DOWNLOAD_CHUNK_SIZE, 512 * 1024,
+                    BoxFileSystemProvider.ENV_DOWNLOAD_CONCURRENCY, 2))) {
+
+                try (InputStream is = Files.newInputStream(fs.getPath("/large.bin"))) {
+                    assertEquals(bytes[0] & 0xff, is.read());
+                    server.update(id, "Hello".getBytes());
+
+                    assertArrayEquals(Arrays.copyOfRange(bytes, 1, bytes.length), is.readAllBytes());
+                }
+            }
+        }
+    }
+}